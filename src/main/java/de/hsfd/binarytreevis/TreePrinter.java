@@ -72,12 +72,19 @@ import java.util.logging.Logger;
 public class TreePrinter {
     private final Logger LOGGER = Logger.getLogger(this.getClass().getName());
 
-    private final int data;
+    private final String data;
     private TreePrinter left;
     private TreePrinter right;
     private final String color;
 
     public TreePrinter(int data, TreePrinter left, TreePrinter right, String color) {
+        this(String.valueOf(data), left, right, color);
+    }
+
+    /**
+     * @param data the label of the node, e.g. the key of a tree which does not have int keys
+     */
+    public TreePrinter(String data, TreePrinter left, TreePrinter right, String color) {
         this.data = data;
         this.left = left;
         this.right = right;
@@ -221,16 +228,16 @@ public class TreePrinter {
 
             // Write the node representation
             builder.append(String.format("    \"%s\" [style=filled, fillcolor=%s, fontcolor=%s];\n",
-                    node.data, fillColor, fontColor));
+                    node.dotId(), fillColor, fontColor));
 
             // Add non-NIL node to depthMap for rank=same grouping
             // noinspection unused
-            depthMap.computeIfAbsent(depth, k -> new ArrayList<>()).add(String.valueOf(node.data));
+            depthMap.computeIfAbsent(depth, k -> new ArrayList<>()).add(node.dotId());
 
             // Left child
             if (node.getLeft() != null) {
                 builder.append(String.format("    \"%s\" -> \"%s\";\n",
-                        node.data, node.getLeft().data));
+                        node.dotId(), node.getLeft().dotId()));
                 generateDOT(node.getLeft(), builder, depth + 1, depthMap);
             } else if (node.getRight() != null) {
                 // Invisible edge to represent missing left child
@@ -238,13 +245,13 @@ public class TreePrinter {
                 builder.append(String.format(
                         "    \"%s\" [shape=circle, style=invis, fillcolor=black, width=0.1, height=0.1, label=\"\"];\n",
                         nilId));
-                builder.append(String.format("    \"%s\" -> \"%s\" [style=invis];\n", node.data, nilId));
+                builder.append(String.format("    \"%s\" -> \"%s\" [style=invis];\n", node.dotId(), nilId));
             }
 
             // Right child
             if (node.getRight() != null) {
                 builder.append(String.format("    \"%s\" -> \"%s\";\n",
-                        node.data, node.getRight().data));
+                        node.dotId(), node.getRight().dotId()));
                 generateDOT(node.getRight(), builder, depth + 1, depthMap);
             } else if (node.getLeft() != null) {
                 // Invisible edge to represent missing right child
@@ -252,11 +259,18 @@ public class TreePrinter {
                 builder.append(String.format(
                         "    \"%s\" [shape=circle, style=invis, fillcolor=black, width=0.1, height=0.1, label=\"\"];\n",
                         nilId));
-                builder.append(String.format("    \"%s\" -> \"%s\" [style=invis];\n", node.data, nilId));
+                builder.append(String.format("    \"%s\" -> \"%s\" [style=invis];\n", node.dotId(), nilId));
             }
         }
     }
 
+    /**
+     * @return the label of the node as the content of a quoted DOT id
+     */
+    private String dotId() {
+        return data.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
     /**
      * <p>
      * Exports the binary tree structure in DOT format as a string.
@@ -2,12 +2,17 @@ package de.hsfd.binarytreevis.controller;
 
 import com.github.rjeschke.txtmark.Processor;
 import de.hsfd.binarytreevis.services.Author;
+import de.hsfd.binarytreevis.services.KeyCodec;
+import de.hsfd.binarytreevis.services.PersistentNode;
+import de.hsfd.binarytreevis.services.TreeArchive;
 import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeRecord;
 import de.hsfd.binarytreevis.services.TreeService;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -26,13 +31,20 @@ import javafx.util.Duration;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
 
 @Author(name = "Agha Muhammad Aslam", date = "12 Dec 2023")
 public abstract class TreeController extends Application {
@@ -47,6 +59,11 @@ public abstract class TreeController extends Application {
 
     private final String TITLE;
 
+    private static final String ARCHIVE_EXTENSION = ".btv";
+
+    private static final FileChooser.ExtensionFilter ARCHIVE_FILTER =
+            new FileChooser.ExtensionFilter("Tree Archives", "*" + ARCHIVE_EXTENSION);
+
     private final TreeService<Integer> tree;
 
     public TreeService<Integer> getTree( ) {
@@ -73,6 +90,8 @@ public abstract class TreeController extends Application {
 
     private final WebView messageBox = (WebView) mainScreen.lookup("#messageBox");
 
+    private int shownRecords = 0; // the number of records shown in the messageBox
+
     public Pane getMainCanvas( ) {
         return mainCanvas;
     }
@@ -110,6 +129,8 @@ public abstract class TreeController extends Application {
             messageBox.getStyleClass().add("browser");
 
             Button downloadButton = (Button) mainScreen.lookup("#downloadButton");
+            Button openButton = (Button) mainScreen.lookup("#openButton");
+            openButton.setOnAction(_ -> openArchive(openButton, status, view));
 
             addFunctionalities(status,textField, insert, delete, nextButton,
                                prevButton, history, tree, view, treePanes, index,
@@ -118,7 +139,7 @@ public abstract class TreeController extends Application {
                                       index, treePanes, tree);
 
             tree.setStatus(nodesView::setText);
-            tree.setHistoryService(s -> reparse(s,messageBox));
+            tree.setHistoryService(record -> appendRecord(record, tree));
 
         } catch (NullPointerException e){
             //noinspection CallToPrintStackTrace
@@ -128,6 +149,54 @@ public abstract class TreeController extends Application {
         return mainScreen;
     }
 
+    /**
+     * Shows the history from the first modification until the given index in the messageBox.
+     * @param tree the tree of the history
+     * @param index the index of the last modification to be shown (inclusive)
+     */
+    private void showHistory(TreeService<Integer> tree, int index) {
+        reparse(tree.renderHistory(index), messageBox);
+        shownRecords = index + 1;
+    }
+
+    /**
+     * Appends the record of the last modification to the page loaded in the messageBox,
+     * so that only the new record is rendered and parsed.
+     * The whole history is shown again if the page does not end with the previous record,
+     * e.g. after browsing the history or while the page is still loading.
+     * @param record the record of the last modification
+     * @param tree the tree of the history
+     */
+    private void appendRecord(TreeRecord record, TreeService<Integer> tree) {
+        int records = tree.getRecordList().size();
+        WebEngine engine = messageBox.getEngine();
+        if (shownRecords != records - 1 || engine.getLoadWorker().getState() != Worker.State.SUCCEEDED) {
+            showHistory(tree, records - 1);
+            return;
+        }
+        engine.executeScript("document.body.insertAdjacentHTML('beforeend', " + toScriptString(Processor.process(record.render())) + ");"
+                                     + "window.scrollTo(0, document.body.scrollHeight);");
+        shownRecords = records;
+    }
+
+    /**
+     * @return the text as a string literal of JavaScript
+     */
+    private static String toScriptString(String s) {
+        StringBuilder literal = new StringBuilder(s.length() + 16).append('\'');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\'', '\\' -> literal.append('\\').append(c);
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\u2028', '\u2029' -> literal.append(String.format("\\u%04x", (int) c));
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('\'').toString();
+    }
+
     private void reparse(String s, WebView messageBox) {
         try {
             // Define the HTML template
@@ -226,8 +295,7 @@ public abstract class TreeController extends Application {
             nextView.displayTree();
 
             if( !tree.getRecordList().isEmpty() ) {
-                String s = tree.getRecordList().get(index.get());
-                reparse(s,messageBox);
+                showHistory(tree, index.get());
             }
 
             status.setText((index.get() + 1) + "/" + treePanes.size());   // update the status
@@ -248,8 +316,7 @@ public abstract class TreeController extends Application {
             prevView.displayTree();
 
             if( !tree.getRecordList().isEmpty() ) {
-                String s = tree.getRecordList().get(index.get());
-                reparse(s,messageBox);
+                showHistory(tree, index.get());
             }
 
             status.setText((index.get() + 1) + "/" + treePanes.size());   // update the status
@@ -286,7 +353,7 @@ public abstract class TreeController extends Application {
         delete.setOnAction(_ ->{
             if(!actionMode) return; // there is an error within the application, so don't do anything
 
-            int key;
+            List<Integer> keys;
 
             if( textField.getText().isEmpty() ) {
                 if(tree.getRoot() == null){
@@ -295,42 +362,46 @@ public abstract class TreeController extends Application {
                 }
                 // if the text field is empty, then delete the last node inserted
                 try {
-                    key = tree.lastInserted();
+                    keys = List.of(tree.lastInserted());
                 } catch (Exception ex) {
                     updateStatus(ex.getMessage(), StatusType.ERROR);
                     throw new RuntimeException(ex);
                 }
             } else {
                 try{
-                    key = Integer.parseInt(textField.getText());
+                    keys = parseKeys(textField.getText());
                 } catch (NumberFormatException ex){
                     updateStatus("You have entered an invalid input!\nInteger numbers only!\n" + ex.getMessage(), StatusType.WARNING);
                     return;
                 }
             }
 
-            if(!tree.search(key)){
+            int deleted;
+            try {
+                // all keys are deleted as one batch, so there is only one entry in the history.
+                // The missing keys are skipped while deleting, so the tree is not searched before.
+                deleted = tree.deleteAll(keys);
+            } catch ( Exception ex ) {
+                //noinspection CallToPrintStackTrace
+                ex.printStackTrace();
+                TreeRecord msg = new TreeRecord().append("----\n").append(ex.getMessage());
+                tree.getRecordList().add(msg);
+//                messageBox.appendText(tree.getRecordList().get(index.incrementAndGet()));
+                updateStatus("Trying delete: " + keys +"\nSomething went wrong,\nCheck the console!", StatusType.ERROR);
                 view.displayTree();
-                updateStatus("You have entered a value which is not present in the tree!", StatusType.WARNING);
+                textField.clear();
+                return;
+            } catch (TreeException ex) {
+                throw new RuntimeException(ex);
             }
-            else{
-                try {
-                    tree.delete(key);
-                } catch ( Exception ex ) {
-                    //noinspection CallToPrintStackTrace
-                    ex.printStackTrace();
-                    String msg = tree.getRecordList().get(index.get())+ "----\n" + ex.getMessage();
-                    tree.getRecordList().add(msg);
-//                    messageBox.appendText(tree.getRecordList().get(index.incrementAndGet()));
-                    updateStatus("Trying delete: " + key +"\nSomething went wrong,\nCheck the console!", StatusType.ERROR);
-                } catch (TreeException ex) {
-                    throw new RuntimeException(ex);
-                }
-                view.displayTree();
+            view.displayTree();
+            if (deleted == 0) {
+                updateStatus("You have entered a value which is not present in the tree!", StatusType.WARNING);
+            } else {
                 treePanes.add(TreePane.copyOf(view));
                 index.set(treePanes.size() - 1);
                 statusPage.setText((index.get() + 1) + "/" + treePanes.size());   // update the statusPage
-                updateStatus("Node deleted successfully!", StatusType.NORMAL);
+                updateStatus(deleted > 1 ? deleted + " nodes deleted successfully!" : "Node deleted successfully!", StatusType.NORMAL);
             }
 
             textField.clear();
@@ -353,15 +424,18 @@ public abstract class TreeController extends Application {
         // Open a FileChooser dialog for the user to specify where to save the file
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save HTML File");
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("HTML Files", "*.html")
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("HTML Files", "*.html"),
+                ARCHIVE_FILTER
         );
 
         // Show the save dialog
         Stage stage = (Stage) downloadButton.getScene().getWindow(); // Get the current window
         File selectedFile = fileChooser.showSaveDialog(stage);
 
-        if (selectedFile != null) {
+        if (selectedFile != null && selectedFile.getName().endsWith(ARCHIVE_EXTENSION)) {
+            saveArchive(selectedFile);
+        } else if (selectedFile != null) {
             try (FileWriter fileWriter = new FileWriter(selectedFile)) {
                 fileWriter.write(htmlContent);
                 System.out.println("HTML file saved as " + selectedFile.getAbsolutePath());
@@ -374,6 +448,51 @@ public abstract class TreeController extends Application {
 
     }
 
+    /**
+     * Saves the tree with its whole history as a {@link TreeArchive}, which is much smaller than the HTML file,
+     * because the images of the history are not included.
+     * @param file the file of the archive
+     */
+    private void saveArchive(File file) {
+        List<PersistentNode<Integer>> versions = treePanes.stream().map(TreePane::getVersion).toList();
+        try (FileChannel out = FileChannel.open(file.toPath(), WRITE, CREATE, TRUNCATE_EXISTING)) {
+            TreeArchive.write(tree, versions, KeyCodec.INTEGER, out);
+            updateStatus("Tree saved as " + file.getName(), StatusType.NORMAL);
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Error saving the tree archive", e);
+            updateStatus("Failed to save the tree!\n" + e.getMessage(), StatusType.ERROR);
+        }
+    }
+
+    /**
+     * Replaces the tree and the history with the content of a {@link TreeArchive}.
+     */
+    private void openArchive(Button openButton, Text statusPage, TreePane view) {
+        if (isHistorySelected.get()) {
+            updateStatus("Please leave the history mode first!", StatusType.WARNING);
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Tree");
+        fileChooser.getExtensionFilters().add(ARCHIVE_FILTER);
+        File selectedFile = fileChooser.showOpenDialog(openButton.getScene().getWindow());
+        if (selectedFile == null) return;
+
+        try (FileChannel in = FileChannel.open(selectedFile.toPath(), READ)) {
+            List<PersistentNode<Integer>> versions = TreeArchive.read(in, KeyCodec.INTEGER, tree);
+            treePanes.clear();
+            for (PersistentNode<Integer> version : versions) treePanes.add(TreePane.copyOf(view, version));
+            index.set(treePanes.size() - 1);
+            statusPage.setText((index.get() + 1) + "/" + treePanes.size());
+            view.displayTree();
+            if (!tree.getRecordList().isEmpty()) showHistory(tree, tree.getRecordList().size() - 1);
+            updateStatus("Tree opened from " + selectedFile.getName(), StatusType.NORMAL);
+        } catch (IOException e) {
+            log.log(Level.SEVERE, "Error opening the tree archive", e);
+            updateStatus("Failed to open the tree!\n" + e.getMessage(), StatusType.ERROR);
+        }
+    }
+
     private void setHistoryDefaultConfiguration( Text status, String str,
                                                  AtomicBoolean isHistorySelected,
                                                  TextField textField, Button insert,
@@ -396,14 +515,13 @@ public abstract class TreeController extends Application {
         TreePane thisView = treePanes.get(index.get());
 
         if( !tree.getRecordList().isEmpty() ) {
-            String s = tree.getRecordList().get(index.get());
-            reparse(s,messageBox);
+            showHistory(tree, index.get());
         }
 
-        if(!thisView.getTree().equals( view.getTree())) {
+        if(!TreeService.equalTrees(thisView.getRoot(), view.getRoot())) {
             updateStatus("Something not right with the tree!\nCheck the console!", StatusType.ERROR);
             throw new RuntimeException("Something not right with the tree:\n - Check if the copyOf() works as intended."
-                                               + "\nthisView:" + thisView.getTree() + "\nview:" + view.getTree());
+                                               + "\nthisView:" + thisView.getRoot() + "\nview:" + view.getRoot());
         }
 
         thisView.displayTree();
@@ -420,27 +538,28 @@ public abstract class TreeController extends Application {
         }
         else {
             try {
-                int key = Integer.parseInt(textField.getText());
-                if ( tree.search(key) ) {
+                List<Integer> keys = parseKeys(textField.getText());
+                try {
+                    // all keys are inserted as one batch, so there is only one entry in the history.
+                    // The duplicates are skipped while inserting, so the tree is not searched before.
+                    int inserted = tree.insertAll(keys);
                     view.displayTree();
-                    updateStatus("You have entered a duplicate value!", StatusType.WARNING);
-                } else {
-                    try {
-                        tree.main_insert(key);
-                        view.displayTree();
-                        treePanes.add(TreePane.copyOf(view));
-                        index.set(treePanes.size() - 1);
-                        historyTimeLine.setText((index.get() + 1) + "/" + treePanes.size());   // update the status
-                        textField.clear();
-                        updateStatus("Node inserted successfully!", StatusType.NORMAL);
-                    } catch ( Exception | TreeException e) {
-                        updateStatus("""
-                                Something went wrong!
-                                Failed to add element to the tree.
-                                Please check insert function!
-                                """ + e.getMessage(), StatusType.ERROR);
-                        throw new RuntimeException(e);
+                    if (inserted == 0) {
+                        updateStatus("You have entered a duplicate value!", StatusType.WARNING);
+                        return;
                     }
+                    treePanes.add(TreePane.copyOf(view));
+                    index.set(treePanes.size() - 1);
+                    historyTimeLine.setText((index.get() + 1) + "/" + treePanes.size());   // update the status
+                    textField.clear();
+                    updateStatus(inserted > 1 ? inserted + " nodes inserted successfully!" : "Node inserted successfully!", StatusType.NORMAL);
+                } catch ( Exception | TreeException e) {
+                    updateStatus("""
+                            Something went wrong!
+                            Failed to add element to the tree.
+                            Please check insert function!
+                            """ + e.getMessage(), StatusType.ERROR);
+                    throw new RuntimeException(e);
                 }
             } catch ( NumberFormatException ex ) {
                 updateStatus("You have entered an invalid input!\nInteger numbers only", StatusType.WARNING);
@@ -448,6 +567,18 @@ public abstract class TreeController extends Application {
         }
     }
 
+    /**
+     * Parses the input of the text field. Several keys can be entered separated by commas, e.g. "1, 2, 3".
+     * @param input the text of the text field
+     * @return the keys in the order of the input
+     * @throws NumberFormatException if one of the keys is not an integer
+     */
+    private static List<Integer> parseKeys( String input ) {
+        List<Integer> keys = new ArrayList<>();
+        for (String key : input.split(",")) keys.add(Integer.parseInt(key.strip()));
+        return keys;
+    }
+
     protected static void showErrorBox( String s ) {
         Alert alert = new Alert(Alert.AlertType.ERROR, s, ButtonType.OK);
         alert.getDialogPane().setMinHeight(80);
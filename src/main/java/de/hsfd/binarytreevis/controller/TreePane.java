@@ -4,11 +4,11 @@ import de.hsfd.binarytreevis.controller.avl.AVL_Pane;
 import de.hsfd.binarytreevis.controller.bst.BST_Pane;
 import de.hsfd.binarytreevis.controller.rbt.RBT_Pane;
 import de.hsfd.binarytreevis.services.Author;
+import de.hsfd.binarytreevis.services.BinaryNode;
+import de.hsfd.binarytreevis.services.PersistentNode;
+import de.hsfd.binarytreevis.services.TreeArchive;
 import de.hsfd.binarytreevis.services.TreeNode;
 import de.hsfd.binarytreevis.services.TreeService;
-import de.hsfd.binarytreevis.services.avl.AVLTree;
-import de.hsfd.binarytreevis.services.bst.BSTree;
-import de.hsfd.binarytreevis.services.rbt.RBTree;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
@@ -29,17 +29,79 @@ public abstract class TreePane {
 
     private final Pane mainCanvas;
 
+    /**
+     * True if the pane shows the live tree, false for a pane of the history.
+     */
+    private final boolean live;
+
+    /**
+     * The version of the tree shown by a pane of the history, null if the version is an empty tree.
+     * It is not used if the pane is {@link #live}.
+     */
+    private final PersistentNode<Integer> version;
+
     public Pane getCanvas( ) {
         return mainCanvas;
     }
 
+    /**
+     * @return the tree of the pane. The panes of the history share the tree with the original pane,
+     * use {@link #getRoot()} to get the displayed version.
+     */
     public TreeService<Integer> getTree( ) {
         return tree;
     }
 
+    /**
+     * @return the root of the displayed tree, the frozen version if this pane is part of the history
+     */
+    public BinaryNode<Integer> getRoot( ) {
+        return live ? tree.getRoot() : version;
+    }
+
+    /**
+     * @return true if the pane shows the live tree, false if it is a pane of the history
+     */
+    public boolean isLive( ) {
+        return live;
+    }
+
+    /**
+     * @return the frozen version shown by this pane of the history, null if the version is empty.
+     * Null as well if the pane shows the live tree, see {@link #isLive()}.
+     */
+    public PersistentNode<Integer> getVersion( ) {
+        return version;
+    }
+
     protected TreePane( TreeService<Integer> tree, Pane mainCanvas ) {
         this.mainCanvas = mainCanvas;
         this.tree = tree;
+        this.live = true;
+        this.version = null;
+    }
+
+    /**
+     * Creates a pane that shows the current version of the tree of original.
+     * The version shares all the unchanged nodes with the previous versions, see {@link TreeService#snapshot()}.
+     *
+     * @param original the pane of the live tree
+     */
+    protected TreePane( TreePane original ) {
+        this(original, original.tree.snapshot().getRoot());
+    }
+
+    /**
+     * Creates a pane that shows the given version of the tree of original, e.g. read from a {@link TreeArchive}.
+     *
+     * @param original the pane of the live tree
+     * @param version the version to be shown, null for an empty tree
+     */
+    protected TreePane( TreePane original, PersistentNode<Integer> version ) {
+        this.mainCanvas = original.mainCanvas;
+        this.tree = original.tree;
+        this.live = false;
+        this.version = version;
     }
 
     public abstract void displayTree();
@@ -58,7 +120,7 @@ public abstract class TreePane {
      * @param color The color to fill the nodes.
      */
     @SuppressWarnings({"UnnecessaryLocalVariable", "CommentedOutCode"})
-    protected void displayTree(TreeNode<Integer> root, double x, double y, double hGap, Color color) {
+    protected void displayTree(BinaryNode<Integer> root, double x, double y, double hGap, Color color) {
         // Dynamically adjust horizontal gap based on depth
 //        int depth = root.getHeight();
 //        double adjustedHGap = hGap / (depth); // (dept) only if the depth is 0, otherwise it should be (depth + 1)
@@ -84,7 +146,7 @@ public abstract class TreePane {
         mainCanvas.getChildren().addAll(circle, setText(root, x, y));
     }
 
-    private void setNodeColour(TreeNode<Integer> root, Circle circle) {
+    private void setNodeColour(BinaryNode<Integer> root, Circle circle) {
         circle.setStroke(Color.BLACK);
         if(root.getColor() == TreeNode.COLOR.RED)
             circle.setFill(Color.INDIANRED);
@@ -94,7 +156,7 @@ public abstract class TreePane {
     }
 
 
-    protected Text setText( TreeNode<Integer> root, double x, double y ) {
+    protected Text setText( BinaryNode<Integer> root, double x, double y ) {
         // Create and position the text
         Text text = new Text(root.getData() + "");
         double textWidth = text.getLayoutBounds().getWidth();
@@ -113,10 +175,22 @@ public abstract class TreePane {
 
     /**
      * Static method that copies an existing TreePane into a new instance.
+     * The copy shows the current version of the tree, without copying the whole tree,
+     * see {@link #TreePane(TreePane)}.
      * @param original The original TreePane to copy.
      * @return A newly created TreePane with the same properties as original.
      */
     public static TreePane copyOf(TreePane original) {
+        return copyOf(original, original == null ? null : original.tree.snapshot().getRoot());
+    }
+
+    /**
+     * Creates a pane of the history of original, which shows the given version.
+     * @param original the pane of the live tree
+     * @param version the version to be shown, null for an empty tree
+     * @return the new TreePane
+     */
+    public static TreePane copyOf(TreePane original, PersistentNode<Integer> version) {
 
         if (original == null) {
             return null;
@@ -126,9 +200,9 @@ public abstract class TreePane {
         // Assuming there's a TreePane concrete class implementation
 
         return switch (original) {
-            case AVL_Pane _ -> new AVL_Pane(new AVLTree<>(original.tree), original.mainCanvas);
-            case BST_Pane _ -> new BST_Pane(new BSTree<>(original.tree), original.mainCanvas);
-            case RBT_Pane _ -> new RBT_Pane(new RBTree<>(original.tree), original.mainCanvas);
+            case AVL_Pane avl -> new AVL_Pane(avl, version);
+            case BST_Pane bst -> new BST_Pane(bst, version);
+            case RBT_Pane rbt -> new RBT_Pane(rbt, version);
             default -> throw new RuntimeException("Unknown TreePane type");
         };
 
@@ -2,6 +2,7 @@ package de.hsfd.binarytreevis.controller.bst;
 
 import de.hsfd.binarytreevis.controller.TreePane;
 import de.hsfd.binarytreevis.services.Author;
+import de.hsfd.binarytreevis.services.PersistentNode;
 import de.hsfd.binarytreevis.services.TreeService;
 import javafx.geometry.Insets;
 import javafx.scene.layout.Background;
@@ -23,11 +24,28 @@ public class BST_Pane extends TreePane {
                         Insets.EMPTY)));
     }
 
+    /**
+     * Creates a pane of the history, showing the current version of the tree of original.
+     * @param original the pane of the live tree
+     */
+    public BST_Pane( BST_Pane original ) {
+        super(original);
+    }
+
+    /**
+     * Creates a pane of the history, showing the given version of the tree of original.
+     * @param original the pane of the live tree
+     * @param version the version to be shown
+     */
+    public BST_Pane( BST_Pane original, PersistentNode<Integer> version ) {
+        super(original, version);
+    }
+
     @Override
     public void displayTree(){
         this.getCanvas().getChildren().clear();
-        if(this.getTree().getRoot() != null){
-            displayTree(this.getTree().getRoot(), this.getCanvas().getWidth() / 2, vGap, this.getCanvas().getWidth() / 4, Color.MEDIUMPURPLE);
+        if(this.getRoot() != null){
+            displayTree(this.getRoot(), this.getCanvas().getWidth() / 2, vGap, this.getCanvas().getWidth() / 4, Color.MEDIUMPURPLE);
         }
     }
 
@@ -2,6 +2,7 @@ package de.hsfd.binarytreevis.controller.rbt;
 
 import de.hsfd.binarytreevis.controller.TreePane;
 import de.hsfd.binarytreevis.services.Author;
+import de.hsfd.binarytreevis.services.PersistentNode;
 import de.hsfd.binarytreevis.services.TreeService;
 import javafx.geometry.Insets;
 import javafx.scene.layout.Background;
@@ -18,11 +19,28 @@ public class RBT_Pane extends TreePane {
         mainCanvas.setBackground(new Background(new BackgroundFill(Color.web("#FAF0E6"), CornerRadii.EMPTY, Insets.EMPTY)));
     }
 
+    /**
+     * Creates a pane of the history, showing the current version of the tree of original.
+     * @param original the pane of the live tree
+     */
+    public RBT_Pane( RBT_Pane original ) {
+        super(original);
+    }
+
+    /**
+     * Creates a pane of the history, showing the given version of the tree of original.
+     * @param original the pane of the live tree
+     * @param version the version to be shown
+     */
+    public RBT_Pane( RBT_Pane original, PersistentNode<Integer> version ) {
+        super(original, version);
+    }
+
     @Override
     public void displayTree(){
         this.getCanvas().getChildren().clear();
-        if(this.getTree().getRoot() != null){
-            displayTree(this.getTree().getRoot(), this.getCanvas().getWidth() / 2, vGap, this.getCanvas().getWidth() / 4, null);
+        if(this.getRoot() != null){
+            displayTree(this.getRoot(), this.getCanvas().getWidth() / 2, vGap, this.getCanvas().getWidth() / 4, null);
         }
     }
 }
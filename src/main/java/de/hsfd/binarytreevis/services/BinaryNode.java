@@ -0,0 +1,26 @@
+package de.hsfd.binarytreevis.services;
+
+/**
+ * Read-only view of a node of a binary tree.
+ * It is implemented by the mutable {@link TreeNode} and the immutable {@link PersistentNode},
+ * so that both can be displayed and compared the same way.
+ *
+ * @param <E> the type of the data of the node
+ */
+public interface BinaryNode<E> {
+
+    E getData( );
+
+    BinaryNode<E> getLeft( );
+
+    BinaryNode<E> getRight( );
+
+    TreeNode.COLOR getColor( );
+
+    int getHeight( );
+
+    /**
+     * @return the amount of keys in this subtree, the nodes without data are not counted
+     */
+    int size( );
+}
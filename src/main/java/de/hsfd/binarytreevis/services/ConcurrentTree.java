@@ -0,0 +1,180 @@
+package de.hsfd.binarytreevis.services;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * A thread-safe view of a {@link TreeService}, so that one tree can be shared by several threads.
+ * <p>The searches walk the tree under an optimistic read of a {@link StampedLock}, without blocking:
+ * if a writer changed the tree in the meantime (or the walk ran into an inconsistent state of a rotation),
+ * the search is repeated under the read lock. The modifications, including the rotations of the AVL tree
+ * and the fixups of the red-black tree, take the write lock.</p>
+ * <p>The tree must not be used directly while it is shared. The recording should be
+ * {@link TreeService.RecordingMode#OFF}, the records of a shared tree would mix the modifications of all threads.</p>
+ *
+ * @param <E> the type of the keys
+ */
+public final class ConcurrentTree<E extends Comparable<E>> {
+
+    private final TreeService<E> tree;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * @param tree the tree to be shared, it should not be used directly anymore
+     */
+    public ConcurrentTree(TreeService<E> tree) {
+        this.tree = tree;
+    }
+
+    public boolean search(E key) {
+        return lookup(key) != null;
+    }
+
+    /**
+     * Finds the key like {@link TreeService#lookup(Comparable)}, without a lock if no writer interferes.
+     *
+     * @param key the key to be searched
+     * @return the key of the tree which is equal to key, or null if there is none
+     */
+    public E lookup(E key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                E found = find(key);
+                if (lock.validate(stamp)) return found;
+            } catch (RuntimeException ignored) {
+                // the walk saw a half-done modification, repeat it under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return tree.lookup(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size( ) {
+        long stamp = lock.tryOptimisticRead();
+        int size = tree.size;
+        if (lock.validate(stamp)) return size;
+        stamp = lock.readLock();
+        try {
+            return tree.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a read-only version of the tree, see {@link TreeService#snapshot()}.
+     * Only the first snapshot takes the write lock, the following ones do not lock at all.
+     *
+     * @return the version of the tree after the last modification
+     */
+    public TreeView<E> snapshot( ) {
+        TreeView<E> view = tree.lastSnapshot();
+        if (view != null) return view;
+        long stamp = lock.writeLock();
+        try {
+            return tree.snapshot();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs any other query of the tree under the read lock, e.g. {@code read(TreeService::getTreePrinter)}.
+     * The query must not modify the tree and must not return parts of it which are read later.
+     * The order statistics ({@link TreeService#select(int)}) cache the subtree sizes in the nodes,
+     * so they should be queried on a {@link #snapshot()} instead.
+     *
+     * @param query the query of the tree
+     * @return the result of the query
+     */
+    public <T> T read(Function<TreeService<E>, T> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.apply(tree);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Inserts the key under the write lock, see {@link TreeService#main_insert(Comparable)}.
+     *
+     * @param key the key to be inserted
+     * @return false if the key is already in the tree
+     * @throws TreeException if the key could not be inserted
+     */
+    public boolean insert(E key) throws TreeException {
+        long stamp = lock.writeLock();
+        try {
+            return tree.insertIfAbsent(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Deletes the key under the write lock, see {@link TreeService#delete(Comparable)}.
+     *
+     * @param key the key to be deleted
+     * @return false if the key is not in the tree
+     * @throws TreeException if the key could not be deleted
+     */
+    public boolean delete(E key) throws TreeException {
+        long stamp = lock.writeLock();
+        try {
+            return tree.tryDelete(key) == TreeService.Outcome.DELETED;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts all keys with one write lock, see {@link TreeService#insertAll(Iterable)}.
+     */
+    public int insertAll(Iterable<E> keys) throws TreeException {
+        long stamp = lock.writeLock();
+        try {
+            return tree.insertAll(keys);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Deletes all keys with one write lock, see {@link TreeService#deleteAll(Iterable)}.
+     */
+    public int deleteAll(Iterable<E> keys) throws TreeException {
+        long stamp = lock.writeLock();
+        try {
+            return tree.deleteAll(keys);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Walks the tree without a lock. A writer can change the tree in between,
+     * so the walk is limited to the size of the tree to stop if it runs into a cycle of a rotation.
+     *
+     * @throws ConcurrentModificationException if the walk takes more steps than there are nodes
+     */
+    private E find(E key) {
+        int steps = tree.size + 1;
+        TreeNode<E> current = tree.getRoot();
+        while (current != null) {
+            if (steps-- == 0) throw new ConcurrentModificationException();
+            int cmp = tree.compare(key, current.getData());
+            if (cmp < 0) current = current.getLeft();
+            else if (cmp > 0) current = current.getRight();
+            else return current.getData();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+package de.hsfd.binarytreevis.services;
+
+import java.util.Arrays;
+
+/**
+ * Stores the nodes in parallel arrays on the Java heap.
+ * This is the default store of an {@link IntTree}.
+ */
+public final class HeapNodeStore implements NodeStore {
+
+    private int[] keys;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private byte[] tags;
+
+    /**
+     * @param capacity the initial amount of slots, including NIL
+     */
+    public HeapNodeStore(int capacity) {
+        keys = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        tags = new byte[capacity];
+    }
+
+    @Override
+    public int key(int n) {
+        return keys[n];
+    }
+
+    @Override
+    public void setKey(int n, int key) {
+        keys[n] = key;
+    }
+
+    @Override
+    public int left(int n) {
+        return left[n];
+    }
+
+    @Override
+    public void setLeft(int n, int left) {
+        this.left[n] = left;
+    }
+
+    @Override
+    public int right(int n) {
+        return right[n];
+    }
+
+    @Override
+    public void setRight(int n, int right) {
+        this.right[n] = right;
+    }
+
+    @Override
+    public int parent(int n) {
+        return parent[n];
+    }
+
+    @Override
+    public void setParent(int n, int parent) {
+        this.parent[n] = parent;
+    }
+
+    @Override
+    public byte tag(int n) {
+        return tags[n];
+    }
+
+    @Override
+    public void setTag(int n, byte tag) {
+        tags[n] = tag;
+    }
+
+    @Override
+    public int capacity( ) {
+        return keys.length;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        tags = Arrays.copyOf(tags, capacity);
+    }
+
+    @Override
+    public void close( ) {
+        // the arrays are collected by the garbage collector
+    }
+}
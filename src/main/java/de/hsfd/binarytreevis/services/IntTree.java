@@ -0,0 +1,365 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.TreePrinter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A binary search tree of primitive int keys, for the trees with a lot of keys.
+ * <p>Instead of {@link TreeNode} objects with boxed keys, a node is the index of a slot in a {@link NodeStore},
+ * by default parallel arrays on the heap ({@link HeapNodeStore}), a segment outside the heap
+ * ({@link OffHeapNodeStore}) or a mapped file ({@link MappedNodeStore}). The index 0 is the sentinel {@link #NIL}
+ * (like the T.nil of Introduction to Algorithms), so that no null checks are needed.
+ * The indices of the deleted nodes are reused.</p>
+ * <p>The subclasses balance the tree like their boxed counterparts,
+ * see {@link #afterInsert(int)} and {@link #afterDelete(int, int, int)}.
+ * Nothing is recorded for the history.</p>
+ */
+public abstract class IntTree implements AutoCloseable {
+
+    /**
+     * The sentinel for a missing node, its children and parent are NIL as well.
+     */
+    protected static final int NIL = 0;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    protected final NodeStore store;
+
+    protected int root = NIL;
+
+    private int size = 0;
+
+    // the next index which has never been used
+    private int next = 1;
+
+    // the head of the reusable indices, chained through left
+    private int free = NIL;
+
+    /**
+     * @param kind identifies the kind of tree in a persistent store, a constant of the subclass
+     * @param nilTag the tag of {@link #NIL}, e.g. its color
+     */
+    protected IntTree( int kind, byte nilTag ) {
+        this(kind, nilTag, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param kind identifies the kind of tree in a persistent store, a constant of the subclass
+     * @param nilTag the tag of {@link #NIL}, e.g. its color
+     * @param initialCapacity the expected amount of keys, the arrays grow if there are more
+     */
+    protected IntTree( int kind, byte nilTag, int initialCapacity ) {
+        this(kind, nilTag, new HeapNodeStore(Math.max(initialCapacity, 1) + 1)); // + NIL
+    }
+
+    /**
+     * @param kind identifies the kind of tree in a persistent store, a constant of the subclass
+     * @param nilTag the tag of {@link #NIL}, e.g. its color. It is set here and not by {@link #initNode(int)},
+     *               because the subclass is not initialized yet.
+     * @param store an empty store for the nodes or a persistent store of the same kind of tree,
+     *              which is reopened. The store is closed with the tree.
+     * @throws IllegalStateException if the store holds another kind of tree
+     */
+    protected IntTree( int kind, byte nilTag, NodeStore store ) {
+        this.store = store;
+        int[] state = store.loadState(kind);
+        if (state != null) {
+            root = state[0];
+            size = state[1];
+            next = state[2];
+            free = state[3];
+            return;
+        }
+        if (store.capacity() < 2) store.grow(2);
+        store.setTag(NIL, nilTag);
+        saveState();
+    }
+
+    public int size( ) {
+        return size;
+    }
+
+    public boolean isEmpty( ) {
+        return size == 0;
+    }
+
+    public boolean contains( int key ) {
+        return find(key) != NIL;
+    }
+
+    /**
+     * Inserts the key and balances the tree.
+     * @param key the key to be inserted
+     * @return false if the key is already in the tree
+     */
+    public boolean insert( int key ) {
+        int p = NIL;
+        int n = root;
+        boolean smaller = false;
+        while (n != NIL) {
+            p = n;
+            int k = key(n);
+            if (key == k) return false; // the value is the same, do not add the value
+            smaller = key < k;
+            n = smaller ? left(n) : right(n);
+        }
+
+        int z = newNode(key);
+        setParent(z, p);
+        if (p == NIL) root = z;
+        else if (smaller) setLeft(p, z);
+        else setRight(p, z);
+        size++;
+        afterInsert(z);
+        saveState();
+        return true;
+    }
+
+    /**
+     * Deletes the key and balances the tree.
+     * <p>Like {@link TreeService#replaceWithTheSmallestOfRightChildren(TreeNode)}, a node with two children
+     * takes the key of the smallest node of its right subtree, which is removed instead.</p>
+     * @param key the key to be deleted
+     * @return false if the key is not in the tree
+     */
+    public boolean delete( int key ) {
+        int z = find(key);
+        if (z == NIL) return false;
+
+        int y = left(z) != NIL && right(z) != NIL ? minimum(right(z)) : z;
+        if (y != z) store.setKey(z, key(y));
+
+        // y has at most one child, which takes its place
+        int x = left(y) != NIL ? left(y) : right(y);
+        int xParent = parent(y);
+        replace(y, x);
+        size--;
+        afterDelete(y, x, xParent);
+        freeNode(y);
+        saveState();
+        return true;
+    }
+
+    /**
+     * Called after the new node z has been connected to the tree.
+     * @param z the new node
+     */
+    protected abstract void afterInsert( int z );
+
+    /**
+     * Called after the node y has been removed from the tree. The index y is reused afterwards.
+     * @param y the removed node
+     * @param x the child of y which took its place, can be NIL
+     * @param xParent the parent of x, because x can be NIL
+     */
+    protected abstract void afterDelete( int y, int x, int xParent );
+
+    /**
+     * Called when a node is created or reused, but not for NIL.
+     * Sets the tag of the node, see {@link NodeStore#tag(int)}.
+     * @param n the index of the node
+     */
+    protected abstract void initNode( int n );
+
+    /**
+     * Writes the tree to the disk if the store is persistent, see {@link MappedNodeStore}.
+     */
+    public void sync( ) {
+        store.sync();
+    }
+
+    /**
+     * Releases the store of the nodes, the tree must not be used afterwards.
+     */
+    @Override
+    public void close( ) {
+        store.close();
+    }
+
+    /**
+     * @return all keys in ascending order
+     */
+    public int[] toSortedArray( ) {
+        int[] result = new int[size];
+        int i = 0;
+        int[] stack = new int[64];
+        int top = 0;
+        int n = root;
+        while (n != NIL || top > 0) {
+            while (n != NIL) {
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = n;
+                n = left(n);
+            }
+            n = stack[--top];
+            result[i++] = key(n);
+            n = right(n);
+        }
+        return result;
+    }
+
+    /**
+     * @return the amount of levels of the tree, 0 if the tree is empty
+     */
+    public int height( ) {
+        int height = 0;
+        ArrayDeque<int[]> stack = new ArrayDeque<>(); // pairs of (node, depth)
+        if (root != NIL) stack.push(new int[]{root, 1});
+        while (!stack.isEmpty()) {
+            int[] top = stack.pop();
+            height = Math.max(height, top[1]);
+            if (left(top[0]) != NIL) stack.push(new int[]{left(top[0]), top[1] + 1});
+            if (right(top[0]) != NIL) stack.push(new int[]{right(top[0]), top[1] + 1});
+        }
+        return height;
+    }
+
+    /**
+     * Builds the TreePrinter of the tree directly from the int keys,
+     * see {@link TreeService#getTreePrinter()}.
+     * @return the root of the TreePrinter representation
+     * @throws NullPointerException if the tree is empty
+     */
+    public TreePrinter getTreePrinter( ) {
+        if (root == NIL) throw new NullPointerException("The tree is empty");
+        TreePrinter printerRoot = new TreePrinter(key(root), null, null, colorOf(root));
+        ArrayDeque<Integer> nodes = new ArrayDeque<>();
+        ArrayDeque<TreePrinter> printers = new ArrayDeque<>();
+        nodes.push(root);
+        printers.push(printerRoot);
+        while (!nodes.isEmpty()) {
+            int n = nodes.pop();
+            TreePrinter printer = printers.pop();
+            if (left(n) != NIL) {
+                printer.setLeft(new TreePrinter(key(left(n)), null, null, colorOf(left(n))));
+                nodes.push(left(n));
+                printers.push(printer.getLeft());
+            }
+            if (right(n) != NIL) {
+                printer.setRight(new TreePrinter(key(right(n)), null, null, colorOf(right(n))));
+                nodes.push(right(n));
+                printers.push(printer.getRight());
+            }
+        }
+        return printerRoot;
+    }
+
+    /**
+     * @param n the node
+     * @return the color of the node for the {@link TreePrinter}
+     */
+    protected String colorOf( int n ) {
+        return "green";
+    }
+
+    protected int find( int key ) {
+        int n = root;
+        while (n != NIL) {
+            int k = key(n);
+            if (key == k) return n;
+            n = key < k ? left(n) : right(n);
+        }
+        return NIL;
+    }
+
+    protected int minimum( int n ) {
+        while (left(n) != NIL) n = left(n);
+        return n;
+    }
+
+    /**
+     * Puts v in the place of u at the parent of u.
+     * The parent of v is set even if v is NIL, the fixup of the red-black tree needs it.
+     */
+    protected void replace( int u, int v ) {
+        int p = parent(u);
+        if (p == NIL) root = v;
+        else if (u == left(p)) setLeft(p, v);
+        else setRight(p, v);
+        setParent(v, p);
+    }
+
+    /**
+     * Based on right-right case, same as {@link TreeService#leftRotate(TreeNode)}.
+     *
+     * @param z the root of rotation
+     */
+    protected void leftRotate( int z ) {
+        int y = right(z);
+        setRight(z, left(y));
+        if (left(y) != NIL) setParent(left(y), z);
+        replace(z, y);
+        setLeft(y, z);
+        setParent(z, y);
+    }
+
+    /**
+     * Based on left-left case, same as {@link TreeService#rightRotate(TreeNode)}.
+     *
+     * @param z the root of rotation
+     */
+    protected void rightRotate( int z ) {
+        int y = left(z);
+        setLeft(z, right(y));
+        if (right(y) != NIL) setParent(right(y), z);
+        replace(z, y);
+        setRight(y, z);
+        setParent(z, y);
+    }
+
+    private int newNode( int key ) {
+        int n;
+        if (free != NIL) {
+            n = free;
+            free = left(n);
+        } else {
+            if (next == store.capacity()) store.grow(store.capacity() + (store.capacity() >> 1) + 1);
+            n = next++;
+        }
+        store.setKey(n, key);
+        setLeft(n, NIL);
+        setRight(n, NIL);
+        setParent(n, NIL);
+        initNode(n);
+        return n;
+    }
+
+    private void freeNode( int n ) {
+        setLeft(n, free);
+        free = n;
+    }
+
+    private void saveState( ) {
+        store.saveState(root, size, next, free);
+    }
+
+    protected final int key( int n ) {
+        return store.key(n);
+    }
+
+    protected final int left( int n ) {
+        return store.left(n);
+    }
+
+    protected final int right( int n ) {
+        return store.right(n);
+    }
+
+    protected final int parent( int n ) {
+        return store.parent(n);
+    }
+
+    protected final void setLeft( int n, int left ) {
+        store.setLeft(n, left);
+    }
+
+    protected final void setRight( int n, int right ) {
+        store.setRight(n, right);
+    }
+
+    protected final void setParent( int n, int parent ) {
+        store.setParent(n, parent);
+    }
+}
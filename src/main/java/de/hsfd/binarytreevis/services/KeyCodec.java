@@ -0,0 +1,40 @@
+package de.hsfd.binarytreevis.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts the keys of a tree to bytes and back, so that they can be written to a {@link TreeLog}.
+ *
+ * @param <E> the type of the keys
+ */
+public interface KeyCodec<E> {
+
+    KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        @Override
+        public byte[] encode(Integer key) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(key).array();
+        }
+
+        @Override
+        public Integer decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    KeyCodec<String> STRING = new KeyCodec<>() {
+        @Override
+        public byte[] encode(String key) {
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    byte[] encode(E key);
+
+    E decode(byte[] bytes);
+}
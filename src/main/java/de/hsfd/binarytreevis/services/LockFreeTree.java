@@ -0,0 +1,300 @@
+package de.hsfd.binarytreevis.services;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent ordered set without locks, with the search, lookup, insert and delete of a {@link TreeService}.
+ * <p>It is the non-blocking external binary search tree of Ellen, Fatourou, Ruppert and van Breugel
+ * ("Non-blocking Binary Search Trees", PODC 2010): the keys are stored in the leaves, the inner nodes only route
+ * the searches. An insert replaces a leaf by an inner node with two leaves, a delete replaces the parent of a leaf
+ * by the sibling of the leaf. Each modification first flags the nodes it changes with a descriptor,
+ * so that every other thread which runs into the flag can finish (help) the modification instead of waiting.
+ * The searches never write and never wait.</p>
+ * <p>The tree is not balanced, random keys give an expected depth of O(log n).
+ * Two sentinel keys bigger than all others make sure that every leaf has a parent and a grandparent.</p>
+ *
+ * @param <E> the type of the keys
+ */
+public final class LockFreeTree<E extends Comparable<E>> {
+
+    // the states of the update field of an inner node
+    private static final int CLEAN = 0;
+    private static final int INSERT_FLAG = 1;
+    private static final int DELETE_FLAG = 2;
+    private static final int MARK = 3;
+
+    private static final VarHandle LEFT;
+    private static final VarHandle RIGHT;
+    private static final VarHandle UPDATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LEFT = lookup.findVarHandle(Inner.class, "left", Node.class);
+            RIGHT = lookup.findVarHandle(Inner.class, "right", Node.class);
+            UPDATE = lookup.findVarHandle(Inner.class, "update", Update.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Update CLEAN_UPDATE = new Update(CLEAN, null);
+
+    private final Inner root;
+
+    private final LongAdder size = new LongAdder();
+
+    public LockFreeTree( ) {
+        root = new Inner(null, 2, new Leaf(null, 1), new Leaf(null, 2));
+    }
+
+    /**
+     * @param key the key to be searched
+     * @return true if the key is in the tree
+     */
+    public boolean search(E key) {
+        return lookup(key) != null;
+    }
+
+    /**
+     * @param key the key to be searched
+     * @return the key of the tree which is equal to key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public E lookup(E key) {
+        Node node = root;
+        while (node instanceof Inner inner) {
+            node = compare(key, inner) < 0 ? inner.left : inner.right;
+        }
+        return compare(key, node) == 0 ? (E) node.key : null;
+    }
+
+    /**
+     * @return the amount of keys. It is exact only if no modification is running at the same time.
+     */
+    public int size( ) {
+        return size.intValue();
+    }
+
+    /**
+     * Inserts the key.
+     *
+     * @param key the key to be inserted
+     * @return false if the key is already in the tree
+     */
+    public boolean insert(E key) {
+        while (true) {
+            Search search = find(key);
+            if (compare(key, search.leaf) == 0) return false;
+            if (search.parentUpdate.state != CLEAN) {
+                help(search.parentUpdate);
+                continue;
+            }
+
+            Leaf newLeaf = new Leaf(key, 0);
+            Leaf sibling = new Leaf(search.leaf.key, search.leaf.infinity);
+            // the new inner node routes with the bigger key, the smaller leaf goes to the left
+            Inner newInner = compare(key, sibling) < 0
+                    ? new Inner(sibling.key, sibling.infinity, newLeaf, sibling)
+                    : new Inner(key, 0, sibling, newLeaf);
+            Update flag = new Update(INSERT_FLAG, new InsertInfo(search.parent, search.leaf, newInner));
+            if (UPDATE.compareAndSet(search.parent, search.parentUpdate, flag)) {
+                helpInsert(flag);
+                size.increment();
+                return true;
+            }
+            help(search.parent.update);
+        }
+    }
+
+    /**
+     * Deletes the key.
+     *
+     * @param key the key to be deleted
+     * @return false if the key is not in the tree
+     */
+    public boolean delete(E key) {
+        while (true) {
+            Search search = find(key);
+            if (compare(key, search.leaf) != 0) return false;
+            if (search.grandparentUpdate.state != CLEAN) {
+                help(search.grandparentUpdate);
+                continue;
+            }
+            if (search.parentUpdate.state != CLEAN) {
+                help(search.parentUpdate);
+                continue;
+            }
+
+            DeleteInfo info = new DeleteInfo(search.grandparent, search.parent, search.leaf, search.parentUpdate);
+            Update flag = new Update(DELETE_FLAG, info);
+            info.flag = flag;
+            if (UPDATE.compareAndSet(search.grandparent, search.grandparentUpdate, flag)) {
+                if (helpDelete(flag)) {
+                    size.decrement();
+                    return true;
+                }
+            } else {
+                help(search.grandparent.update);
+            }
+        }
+    }
+
+    /**
+     * @return the keys in ascending order. The list is not a consistent snapshot
+     * if there are modifications at the same time.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> keys( ) {
+        List<E> keys = new ArrayList<>();
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node instanceof Inner inner) {
+                stack.push(inner.right);
+                stack.push(inner.left);
+            } else if (node.infinity == 0) {
+                keys.add((E) node.key);
+            }
+        }
+        return keys;
+    }
+
+    private Search find(E key) {
+        Inner grandparent = null;
+        Inner parent = null;
+        Update grandparentUpdate = null;
+        Update parentUpdate = null;
+        Node node = root;
+        while (node instanceof Inner inner) {
+            grandparent = parent;
+            parent = inner;
+            grandparentUpdate = parentUpdate;
+            parentUpdate = inner.update;
+            node = compare(key, inner) < 0 ? inner.left : inner.right;
+        }
+        return new Search(grandparent, parent, (Leaf) node, grandparentUpdate, parentUpdate);
+    }
+
+    private void help(Update update) {
+        switch (update.state) {
+            case INSERT_FLAG -> helpInsert(update);
+            case MARK -> helpMarked((DeleteInfo) update.info);
+            case DELETE_FLAG -> helpDelete(update);
+            default -> { }
+        }
+    }
+
+    private void helpInsert(Update flag) {
+        InsertInfo info = (InsertInfo) flag.info;
+        replaceChild(info.parent, info.leaf, info.newInner);
+        UPDATE.compareAndSet(info.parent, flag, new Update(CLEAN, info));
+    }
+
+    /**
+     * Marks the parent of the leaf, so that it cannot be changed anymore, and removes it.
+     * If another modification has flagged the parent in the meantime, the delete is undone and has to be retried.
+     *
+     * @return true if the leaf has been removed
+     */
+    private boolean helpDelete(Update flag) {
+        DeleteInfo info = (DeleteInfo) flag.info;
+        UPDATE.compareAndSet(info.parent, info.parentUpdate, new Update(MARK, info));
+        Update current = info.parent.update;
+        if (current.state == MARK && current.info == info) {
+            helpMarked(info);
+            return true;
+        }
+        help(current);
+        UPDATE.compareAndSet(info.grandparent, flag, new Update(CLEAN, info));
+        return false;
+    }
+
+    private void helpMarked(DeleteInfo info) {
+        Node other = info.parent.right == info.leaf ? info.parent.left : info.parent.right;
+        replaceChild(info.grandparent, info.parent, other);
+        UPDATE.compareAndSet(info.grandparent, info.flag, new Update(CLEAN, info));
+    }
+
+    private void replaceChild(Inner parent, Node oldChild, Node newChild) {
+        if (compare(newChild, parent) < 0) LEFT.compareAndSet(parent, oldChild, newChild);
+        else RIGHT.compareAndSet(parent, oldChild, newChild);
+    }
+
+    /**
+     * Compares a key with the key of a node, the sentinel keys are bigger than all keys.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(E key, Node node) {
+        return node.infinity > 0 ? -1 : key.compareTo((E) node.key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Node a, Node b) {
+        if (a.infinity == 0 && b.infinity == 0) return ((E) a.key).compareTo((E) b.key);
+        if (a.infinity == 0) return -1;
+        if (b.infinity == 0) return 1;
+        return Integer.compare(a.infinity, b.infinity);
+    }
+
+    private abstract static class Node {
+        final Object key;
+        // 0 for a key, 1 and 2 for the sentinels
+        final int infinity;
+
+        Node(Object key, int infinity) {
+            this.key = key;
+            this.infinity = infinity;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        Leaf(Object key, int infinity) {
+            super(key, infinity);
+        }
+    }
+
+    private static final class Inner extends Node {
+        volatile Node left;
+        volatile Node right;
+        volatile Update update = CLEAN_UPDATE;
+
+        Inner(Object key, int infinity, Node left, Node right) {
+            super(key, infinity);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * The state of an inner node and the modification which flagged or marked it.
+     * A new object is created for every change, so that compareAndSet cannot be fooled by a reused state (ABA).
+     */
+    private record Update(int state, Object info) {}
+
+    private record InsertInfo(Inner parent, Leaf leaf, Inner newInner) {}
+
+    private static final class DeleteInfo {
+        final Inner grandparent;
+        final Inner parent;
+        final Leaf leaf;
+        final Update parentUpdate;
+        // the flag of the grandparent, set before it is published
+        Update flag;
+
+        DeleteInfo(Inner grandparent, Inner parent, Leaf leaf, Update parentUpdate) {
+            this.grandparent = grandparent;
+            this.parent = parent;
+            this.leaf = leaf;
+            this.parentUpdate = parentUpdate;
+        }
+    }
+
+    private record Search(Inner grandparent, Inner parent, Leaf leaf, Update grandparentUpdate, Update parentUpdate) {}
+}
@@ -0,0 +1,209 @@
+package de.hsfd.binarytreevis.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores the nodes in a file which is mapped into the memory, so that a tree survives a restart of the program.
+ * <p>The file starts with a header page (the kind of tree, root, size, next unused slot and the head of the free slots),
+ * followed by the nodes in the same 20-byte records as {@link OffHeapNodeStore}, padded to whole pages.
+ * Reopening a tree only maps the file and reads the header, the nodes are read by the operating system on demand.</p>
+ * <p>The modifications are written to the file by the operating system at any time.
+ * They are only durable after {@link #sync()} or {@link #close()}.</p>
+ */
+public final class MappedNodeStore implements NodeStore {
+
+    private static final long PAGE_SIZE = 4096;
+
+    private static final int MAGIC = 0x42545653; // "BTVS"
+    private static final int VERSION = 1;
+
+    // the header page
+    private static final long HEADER_MAGIC = 0;
+    private static final long HEADER_VERSION = 4;
+    private static final long HEADER_TYPE = 8;
+    private static final long HEADER_ROOT = 12;
+    private static final long HEADER_SIZE = 16;
+    private static final long HEADER_NEXT = 20;
+    private static final long HEADER_FREE = 24;
+
+    // the records of the nodes, see OffHeapNodeStore
+    private static final long KEY = 0;
+    private static final long LEFT = 4;
+    private static final long RIGHT = 8;
+    private static final long PARENT = 12;
+    private static final long TAG = 16;
+    private static final long RECORD_SIZE = 20;
+
+    private final FileChannel channel;
+
+    private Arena arena;
+
+    private MemorySegment segment;
+
+    private int capacity;
+
+    /**
+     * Opens the file of a tree, or creates it if it does not exist.
+     * @param file the file of the tree
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedNodeStore(Path file) throws IOException {
+        this(file, 16);
+    }
+
+    /**
+     * @param file the file of the tree
+     * @param capacity the initial amount of slots of a new file, including NIL
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedNodeStore(Path file, int capacity) throws IOException {
+        this.channel = FileChannel.open(file, READ, WRITE, CREATE);
+        long length = channel.size() > PAGE_SIZE ? channel.size() : fileLength(capacity);
+        map(length);
+    }
+
+    @Override
+    public int key(int n) {
+        return segment.get(JAVA_INT, offset(n) + KEY);
+    }
+
+    @Override
+    public void setKey(int n, int key) {
+        segment.set(JAVA_INT, offset(n) + KEY, key);
+    }
+
+    @Override
+    public int left(int n) {
+        return segment.get(JAVA_INT, offset(n) + LEFT);
+    }
+
+    @Override
+    public void setLeft(int n, int left) {
+        segment.set(JAVA_INT, offset(n) + LEFT, left);
+    }
+
+    @Override
+    public int right(int n) {
+        return segment.get(JAVA_INT, offset(n) + RIGHT);
+    }
+
+    @Override
+    public void setRight(int n, int right) {
+        segment.set(JAVA_INT, offset(n) + RIGHT, right);
+    }
+
+    @Override
+    public int parent(int n) {
+        return segment.get(JAVA_INT, offset(n) + PARENT);
+    }
+
+    @Override
+    public void setParent(int n, int parent) {
+        segment.set(JAVA_INT, offset(n) + PARENT, parent);
+    }
+
+    @Override
+    public byte tag(int n) {
+        return segment.get(JAVA_BYTE, offset(n) + TAG);
+    }
+
+    @Override
+    public void setTag(int n, byte tag) {
+        segment.set(JAVA_BYTE, offset(n) + TAG, tag);
+    }
+
+    @Override
+    public int capacity( ) {
+        return capacity;
+    }
+
+    /**
+     * Enlarges the file and maps it again. The old mapping is released, nothing is copied.
+     */
+    @Override
+    public void grow(int capacity) {
+        try {
+            Arena old = arena;
+            map(fileLength(capacity));
+            old.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int[] loadState(int type) {
+        if (segment.get(JAVA_INT, HEADER_MAGIC) == 0) {
+            segment.set(JAVA_INT, HEADER_MAGIC, MAGIC);
+            segment.set(JAVA_INT, HEADER_VERSION, VERSION);
+            segment.set(JAVA_INT, HEADER_TYPE, type);
+            return null;
+        }
+        if (segment.get(JAVA_INT, HEADER_MAGIC) != MAGIC || segment.get(JAVA_INT, HEADER_VERSION) != VERSION) {
+            throw new IllegalStateException("The file does not contain a tree");
+        }
+        if (segment.get(JAVA_INT, HEADER_TYPE) != type) {
+            throw new IllegalStateException("The file contains another kind of tree");
+        }
+        return new int[]{
+                segment.get(JAVA_INT, HEADER_ROOT),
+                segment.get(JAVA_INT, HEADER_SIZE),
+                segment.get(JAVA_INT, HEADER_NEXT),
+                segment.get(JAVA_INT, HEADER_FREE)
+        };
+    }
+
+    @Override
+    public void saveState(int root, int size, int next, int free) {
+        segment.set(JAVA_INT, HEADER_ROOT, root);
+        segment.set(JAVA_INT, HEADER_SIZE, size);
+        segment.set(JAVA_INT, HEADER_NEXT, next);
+        segment.set(JAVA_INT, HEADER_FREE, free);
+    }
+
+    @Override
+    public void sync( ) {
+        segment.force();
+    }
+
+    /**
+     * Writes the changes to the disk and closes the file.
+     */
+    @Override
+    public void close( ) {
+        try {
+            segment.force();
+            arena.close();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(long length) throws IOException {
+        Arena newArena = Arena.ofShared();
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, length, newArena);
+        arena = newArena;
+        capacity = (int) Math.min((length - PAGE_SIZE) / RECORD_SIZE, Integer.MAX_VALUE);
+    }
+
+    private static long offset(int n) {
+        return PAGE_SIZE + n * RECORD_SIZE;
+    }
+
+    private static long fileLength(int capacity) {
+        long records = capacity * RECORD_SIZE;
+        return PAGE_SIZE + (records + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+}
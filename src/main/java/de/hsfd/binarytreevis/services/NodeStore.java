@@ -0,0 +1,76 @@
+package de.hsfd.binarytreevis.services;
+
+/**
+ * The storage of the nodes of an {@link IntTree}.
+ * A node is a slot with an index, holding the key, the indices of the children and the parent
+ * and one byte for the balancing (the height of an AVL tree or the color of a red-black tree).
+ * <p>The slots are allocated and reused by the tree, the store only holds them.
+ * The slot 0 is the sentinel NIL of the tree.</p>
+ *
+ * @see HeapNodeStore
+ * @see OffHeapNodeStore
+ * @see MappedNodeStore
+ */
+public interface NodeStore extends AutoCloseable {
+
+    int key(int n);
+
+    void setKey(int n, int key);
+
+    int left(int n);
+
+    void setLeft(int n, int left);
+
+    int right(int n);
+
+    void setRight(int n, int right);
+
+    int parent(int n);
+
+    void setParent(int n, int parent);
+
+    byte tag(int n);
+
+    void setTag(int n, byte tag);
+
+    /**
+     * @return the amount of slots, including NIL
+     */
+    int capacity();
+
+    /**
+     * Enlarges the store, the content of the slots is kept.
+     * @param capacity the new amount of slots, bigger than the current one
+     */
+    void grow(int capacity);
+
+    /**
+     * Reads the state of the tree from a persistent store, so that the tree can be reopened.
+     * @param type identifies the kind of tree, a store of another kind is rejected
+     * @return the root, the size, the next unused slot and the head of the free slots,
+     * or null if the store is new or not persistent
+     * @throws IllegalStateException if the store holds another kind of tree
+     */
+    default int[] loadState(int type) {
+        return null;
+    }
+
+    /**
+     * Keeps the state of the tree after each modification, see {@link #loadState(int)}.
+     * Only persistent stores need it.
+     */
+    default void saveState(int root, int size, int next, int free) {
+    }
+
+    /**
+     * Writes the changes of a persistent store to the disk.
+     */
+    default void sync() {
+    }
+
+    /**
+     * Releases the memory of the store. It must not be used afterwards.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,112 @@
+package de.hsfd.binarytreevis.services;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * Stores the nodes outside the Java heap in a {@link MemorySegment},
+ * so that a tree of tens of millions of keys neither fills the heap nor slows down the garbage collector.
+ * <p>A node is a record of 20 bytes: key, left, right and parent as int and the tag as byte,
+ * padded so that the ints stay aligned. When the store grows, the records are copied into a bigger segment
+ * and the memory of the old one is released immediately.</p>
+ * <p>The store must be closed, see {@link IntTree#close()}.
+ * It can be used by several threads, but not concurrently with {@link #grow(int)} or {@link #close()}.</p>
+ */
+public final class OffHeapNodeStore implements NodeStore {
+
+    private static final long KEY = 0;
+    private static final long LEFT = 4;
+    private static final long RIGHT = 8;
+    private static final long PARENT = 12;
+    private static final long TAG = 16;
+    private static final long RECORD_SIZE = 20;
+
+    private Arena arena;
+
+    private MemorySegment segment;
+
+    private int capacity;
+
+    /**
+     * @param capacity the initial amount of slots, including NIL
+     */
+    public OffHeapNodeStore(int capacity) {
+        this.arena = Arena.ofShared();
+        this.segment = arena.allocate(capacity * RECORD_SIZE, JAVA_INT.byteAlignment());
+        this.capacity = capacity;
+    }
+
+    @Override
+    public int key(int n) {
+        return segment.get(JAVA_INT, n * RECORD_SIZE + KEY);
+    }
+
+    @Override
+    public void setKey(int n, int key) {
+        segment.set(JAVA_INT, n * RECORD_SIZE + KEY, key);
+    }
+
+    @Override
+    public int left(int n) {
+        return segment.get(JAVA_INT, n * RECORD_SIZE + LEFT);
+    }
+
+    @Override
+    public void setLeft(int n, int left) {
+        segment.set(JAVA_INT, n * RECORD_SIZE + LEFT, left);
+    }
+
+    @Override
+    public int right(int n) {
+        return segment.get(JAVA_INT, n * RECORD_SIZE + RIGHT);
+    }
+
+    @Override
+    public void setRight(int n, int right) {
+        segment.set(JAVA_INT, n * RECORD_SIZE + RIGHT, right);
+    }
+
+    @Override
+    public int parent(int n) {
+        return segment.get(JAVA_INT, n * RECORD_SIZE + PARENT);
+    }
+
+    @Override
+    public void setParent(int n, int parent) {
+        segment.set(JAVA_INT, n * RECORD_SIZE + PARENT, parent);
+    }
+
+    @Override
+    public byte tag(int n) {
+        return segment.get(JAVA_BYTE, n * RECORD_SIZE + TAG);
+    }
+
+    @Override
+    public void setTag(int n, byte tag) {
+        segment.set(JAVA_BYTE, n * RECORD_SIZE + TAG, tag);
+    }
+
+    @Override
+    public int capacity( ) {
+        return capacity;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        Arena newArena = Arena.ofShared();
+        MemorySegment newSegment = newArena.allocate(capacity * RECORD_SIZE, JAVA_INT.byteAlignment());
+        MemorySegment.copy(segment, 0, newSegment, 0, segment.byteSize());
+        arena.close();
+        arena = newArena;
+        segment = newSegment;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void close( ) {
+        arena.close();
+    }
+}
@@ -0,0 +1,71 @@
+package de.hsfd.binarytreevis.services;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * The order statistics of a search tree, which walk down one path by the subtree sizes of {@link BinaryNode#size()}.
+ * They are used by the live trees ({@link TreeService}) and their read-only versions ({@link TreeView}).
+ */
+final class OrderStatistics {
+
+    private OrderStatistics( ) {}
+
+    /**
+     * @param root the root of the tree
+     * @param k the index of the key in ascending order, starting from 0
+     * @return the k-th smallest key
+     * @throws IndexOutOfBoundsException if k is negative or not smaller than the amount of keys
+     */
+    static <E> E select(BinaryNode<E> root, int k) {
+        Objects.checkIndex(k, sizeOf(root));
+        BinaryNode<E> current = root;
+        while (true) {
+            int leftSize = sizeOf(current.getLeft());
+            if (k < leftSize) {
+                current = current.getLeft();
+            } else if (k == leftSize) {
+                return current.getData();
+            } else {
+                k -= leftSize + 1;
+                current = current.getRight();
+            }
+        }
+    }
+
+    /**
+     * @param root the root of the tree
+     * @param key the key, it does not need to be in the tree
+     * @param inclusive true if the key itself should be counted
+     * @param comparator the order of the tree, null for the natural order
+     * @return the amount of keys smaller than the key (or equal to it, if inclusive)
+     */
+    static <E extends Comparable<E>> int rank(BinaryNode<E> root, E key, boolean inclusive, Comparator<? super E> comparator) {
+        int rank = 0;
+        BinaryNode<E> current = root;
+        while (current != null && current.getData() != null) {
+            int cmp = TreeService.compare(comparator, key, current.getData());
+            if (cmp < 0) {
+                current = current.getLeft();
+            } else if (cmp > 0) {
+                rank += sizeOf(current.getLeft()) + 1;
+                current = current.getRight();
+            } else {
+                return rank + sizeOf(current.getLeft()) + (inclusive ? 1 : 0);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @return the amount of keys between lo and hi (both inclusive), 0 if lo is bigger than hi
+     */
+    static <E extends Comparable<E>> int countInRange(BinaryNode<E> root, E lo, E hi, Comparator<? super E> comparator) {
+        if (TreeService.compare(comparator, lo, hi) > 0) return 0;
+        return rank(root, hi, true, comparator) - rank(root, lo, false, comparator);
+    }
+
+    private static int sizeOf(BinaryNode<?> node) {
+        return node == null ? 0 : node.size();
+    }
+}
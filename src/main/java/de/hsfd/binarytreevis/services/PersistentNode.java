@@ -0,0 +1,69 @@
+package de.hsfd.binarytreevis.services;
+
+/**
+ * An immutable node of a persistent tree (a frozen version of a tree).
+ * <p>A version is created with {@link TreeNode#freeze()} by path copying:
+ * only the nodes that have been changed since the last version and their ancestors are copied,
+ * all untouched subtrees are shared between the versions.
+ * For the balanced trees this costs O(log n) per insert or delete.</p>
+ * <p>The node has no parent, otherwise the subtrees could not be shared.</p>
+ *
+ * @param <E> the type of the data of the node
+ */
+public final class PersistentNode<E> implements BinaryNode<E> {
+
+    private final E data;
+    private final PersistentNode<E> left;
+    private final PersistentNode<E> right;
+    private final TreeNode.COLOR color;
+    private final int height;
+    private final int size;
+
+    PersistentNode(E data, PersistentNode<E> left, PersistentNode<E> right, TreeNode.COLOR color, int height) {
+        this.data = data;
+        this.left = left;
+        this.right = right;
+        this.color = color;
+        this.height = height;
+        this.size = (data != null ? 1 : 0) + sizeOf(left) + sizeOf(right);
+    }
+
+    @Override
+    public E getData( ) {
+        return data;
+    }
+
+    @Override
+    public PersistentNode<E> getLeft( ) {
+        return left;
+    }
+
+    @Override
+    public PersistentNode<E> getRight( ) {
+        return right;
+    }
+
+    @Override
+    public TreeNode.COLOR getColor( ) {
+        return color;
+    }
+
+    @Override
+    public int getHeight( ) {
+        return height;
+    }
+
+    @Override
+    public int size( ) {
+        return size;
+    }
+
+    public static int sizeOf( PersistentNode<?> n ) {
+        return n == null ? 0 : n.size;
+    }
+
+    @Override
+    public String toString() {
+        return data + ": (l: " + left + ", r:" + right + ")";
+    }
+}
@@ -0,0 +1,329 @@
+package de.hsfd.binarytreevis.services;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A compact binary file of a tree together with its history: the versions shown by the history panel,
+ * the records of the modifications (text and snapshots) and the current tree.
+ * <p>All versions and snapshots are persistent trees which share their unchanged subtrees
+ * (see {@link TreeNode#freeze()}), so every node is written only once and referenced by its number afterward.
+ * A node is written after its children: flags (data, children, color), height, key and the numbers of the children.
+ * The snapshots are not rendered, the SVG images are created again when the history is displayed.</p>
+ * <p>The file is written and read through a small buffer, the whole file is never held in memory.</p>
+ */
+public final class TreeArchive {
+
+    private static final int MAGIC = 0x42545641; // "BTVA"
+    private static final int VERSION = 1;
+
+    // the entries of the file
+    private static final byte END = 0;
+    private static final byte NODE = 1;
+    private static final byte TREE_VERSION = 2;
+    private static final byte RECORD = 3;
+    private static final byte TEXT = 4;
+    private static final byte SNAPSHOT = 5;
+    private static final byte KEYS = 6;
+    private static final byte ROOT = 7;
+
+    // the flags of a node
+    private static final int HAS_DATA = 1;
+    private static final int HAS_LEFT = 2;
+    private static final int HAS_RIGHT = 4;
+    private static final int RED = 8;
+    private static final int BLACK = 16;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private TreeArchive( ) {}
+
+    /**
+     * Writes the tree, its history and the versions into the channel.
+     *
+     * @param tree the tree to be written
+     * @param versions the versions of the tree, e.g. of the history panel. An element can be null (empty tree).
+     * @param codec converts the keys to bytes
+     * @param out the channel, it is not closed
+     * @throws IOException if the channel cannot be written
+     */
+    public static <E extends Comparable<E>> void write(TreeService<E> tree, List<PersistentNode<E>> versions,
+                                                       KeyCodec<E> codec, WritableByteChannel out) throws IOException {
+        Writer<E> writer = new Writer<>(codec, out);
+        writer.buffer.putInt(MAGIC).putInt(VERSION);
+        writer.string(tree.getClass().getName());
+
+        for (PersistentNode<E> version : versions) {
+            writer.reference(TREE_VERSION, version);
+        }
+        for (TreeRecord record : tree.getRecordList()) {
+            writer.entry(RECORD);
+            for (Object part : record.parts()) {
+                if (part instanceof TreeSnapshot snapshot) {
+                    @SuppressWarnings("unchecked")
+                    PersistentNode<E> root = (PersistentNode<E>) snapshot.root();
+                    writer.reference(SNAPSHOT, root);
+                    writer.string(snapshot.fileName());
+                } else {
+                    writer.entry(TEXT);
+                    writer.string(part.toString());
+                }
+            }
+        }
+        writer.entry(KEYS);
+        writer.varInt(tree.getNodes().size());
+        for (E key : tree.getNodes()) writer.key(key);
+        writer.reference(ROOT, tree.freeze());
+        writer.entry(END);
+        writer.flush();
+    }
+
+    /**
+     * Restores the tree and its history from the channel.
+     * The current tree, its keys and its records are replaced.
+     *
+     * @param in the channel, it is not closed
+     * @param codec converts the bytes to keys
+     * @param tree the tree to be restored, of the same class as the written tree
+     * @return the versions of the tree in the order they were written
+     * @throws IOException if the channel cannot be read, or it does not contain an archive of this kind of tree
+     */
+    public static <E extends Comparable<E>> List<PersistentNode<E>> read(ReadableByteChannel in, KeyCodec<E> codec,
+                                                                       TreeService<E> tree) throws IOException {
+        Reader<E> reader = new Reader<>(codec, in);
+        reader.require(2 * Integer.BYTES);
+        if (reader.buffer.getInt() != MAGIC || reader.buffer.getInt() != VERSION) {
+            throw new IOException("The file is not an archive of a tree");
+        }
+        String type = reader.string();
+        if (!type.equals(tree.getClass().getName())) {
+            throw new IOException("The archive contains a " + type + ", not a " + tree.getClass().getName());
+        }
+
+        List<PersistentNode<E>> versions = new ArrayList<>();
+        List<TreeRecord> records = new ArrayList<>();
+        List<E> keys = new ArrayList<>();
+        PersistentNode<E> root = null;
+        for (byte entry = reader.entry(); entry != END; entry = reader.entry()) {
+            switch (entry) {
+                case NODE -> reader.node();
+                case TREE_VERSION -> versions.add(reader.reference());
+                case RECORD -> records.add(new TreeRecord());
+                case TEXT -> lastRecord(records).append(reader.string());
+                case SNAPSHOT -> lastRecord(records).append(new TreeSnapshot(reader.reference(), reader.string()));
+                case KEYS -> {
+                    for (int i = reader.varInt(); i > 0; i--) keys.add(reader.key());
+                }
+                case ROOT -> root = reader.reference();
+                default -> throw new IOException("The archive is damaged, unknown entry " + entry);
+            }
+        }
+        tree.restore(root, keys, records);
+        return versions;
+    }
+
+    private static TreeRecord lastRecord(List<TreeRecord> records) throws IOException {
+        if (records.isEmpty()) throw new IOException("The archive is damaged, a part of a record before any record");
+        return records.getLast();
+    }
+
+    private static final class Writer<E> {
+
+        private final KeyCodec<E> codec;
+
+        private final WritableByteChannel out;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        // the numbers of the nodes which have been written, 0 is null
+        private final IdentityHashMap<PersistentNode<E>, Integer> written = new IdentityHashMap<>();
+
+        private Writer(KeyCodec<E> codec, WritableByteChannel out) {
+            this.codec = codec;
+            this.out = out;
+        }
+
+        /**
+         * Writes the nodes of the tree which have not been written yet (children first), then the reference to it.
+         */
+        private void reference(byte entry, PersistentNode<E> root) throws IOException {
+            ArrayDeque<PersistentNode<E>> stack = new ArrayDeque<>();
+            if (root != null && !written.containsKey(root)) stack.push(root);
+            while (!stack.isEmpty()) {
+                PersistentNode<E> node = stack.peek();
+                boolean childrenWritten = true;
+                if (node.getRight() != null && !written.containsKey(node.getRight())) {
+                    stack.push(node.getRight());
+                    childrenWritten = false;
+                }
+                if (node.getLeft() != null && !written.containsKey(node.getLeft())) {
+                    stack.push(node.getLeft());
+                    childrenWritten = false;
+                }
+                if (childrenWritten) {
+                    stack.pop();
+                    if (!written.containsKey(node)) node(node);
+                }
+            }
+            entry(entry);
+            varInt(root == null ? 0 : written.get(root));
+        }
+
+        private void node(PersistentNode<E> node) throws IOException {
+            entry(NODE);
+            int flags = (node.getData() != null ? HAS_DATA : 0)
+                    | (node.getLeft() != null ? HAS_LEFT : 0)
+                    | (node.getRight() != null ? HAS_RIGHT : 0)
+                    | (node.getColor() == TreeNode.COLOR.RED ? RED : 0)
+                    | (node.getColor() == TreeNode.COLOR.BLACK ? BLACK : 0);
+            ensure(1);
+            buffer.put((byte) flags);
+            varInt(node.getHeight());
+            if (node.getData() != null) key(node.getData());
+            if (node.getLeft() != null) varInt(written.get(node.getLeft()));
+            if (node.getRight() != null) varInt(written.get(node.getRight()));
+            written.put(node, written.size() + 1);
+        }
+
+        private void entry(byte entry) throws IOException {
+            ensure(1);
+            buffer.put(entry);
+        }
+
+        private void key(E key) throws IOException {
+            bytes(codec.encode(key));
+        }
+
+        private void string(String s) throws IOException {
+            bytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void bytes(byte[] bytes) throws IOException {
+            varInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Writes a non-negative int in 7-bit groups, so that small numbers take one byte.
+         */
+        private void varInt(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush( ) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) out.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static final class Reader<E> {
+
+        private final KeyCodec<E> codec;
+
+        private final ReadableByteChannel in;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+        // the nodes by their numbers, 0 is null
+        private final ArrayList<PersistentNode<E>> nodes = new ArrayList<>();
+
+        private Reader(KeyCodec<E> codec, ReadableByteChannel in) {
+            this.codec = codec;
+            this.in = in;
+            nodes.add(null);
+        }
+
+        private void node( ) throws IOException {
+            require(1);
+            int flags = buffer.get();
+            int height = varInt();
+            E data = (flags & HAS_DATA) != 0 ? key() : null;
+            PersistentNode<E> left = (flags & HAS_LEFT) != 0 ? reference() : null;
+            PersistentNode<E> right = (flags & HAS_RIGHT) != 0 ? reference() : null;
+            TreeNode.COLOR color = (flags & RED) != 0 ? TreeNode.COLOR.RED
+                    : (flags & BLACK) != 0 ? TreeNode.COLOR.BLACK : null;
+            nodes.add(new PersistentNode<>(data, left, right, color, height));
+        }
+
+        private PersistentNode<E> reference( ) throws IOException {
+            int number = varInt();
+            if (number >= nodes.size()) throw new IOException("The archive is damaged, unknown node " + number);
+            return nodes.get(number);
+        }
+
+        private byte entry( ) throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        private E key( ) throws IOException {
+            return codec.decode(bytes());
+        }
+
+        private String string( ) throws IOException {
+            return new String(bytes(), StandardCharsets.UTF_8);
+        }
+
+        private byte[] bytes( ) throws IOException {
+            int size = varInt();
+            if (size < 0) throw new IOException("The archive is damaged, invalid length " + size);
+            // the array grows with the bytes read, so a damaged length ends the file before a huge array is allocated
+            byte[] bytes = new byte[Math.min(size, BUFFER_SIZE)];
+            for (int offset = 0; offset < size; ) {
+                require(1);
+                if (offset == bytes.length) bytes = Arrays.copyOf(bytes, (int) Math.min(size, 2L * bytes.length));
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.get(bytes, offset, length);
+                offset += length;
+            }
+            return bytes;
+        }
+
+        private int varInt( ) throws IOException {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+                if (shift > 28) throw new IOException("The archive is damaged, invalid number");
+            }
+        }
+
+        /**
+         * Reads from the channel until the buffer holds at least the given amount of bytes.
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (in.read(buffer) < 0) throw new EOFException("The archive ends unexpectedly");
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -4,4 +4,21 @@ public class TreeException extends Throwable {
     public TreeException(String s) {
         super(s);
     }
+
+    private TreeException(String s, boolean writableStackTrace) {
+        super(s, null, false, writableStackTrace);
+    }
+
+    /**
+     * Creates an exception for an expected outcome, i.e. a duplicate or a missing key.
+     * It has no stack trace, because filling the stack trace is the most expensive part of a throw
+     * and it does not tell more than the message here.
+     * Use {@link TreeService#tryInsert(Comparable)} and {@link TreeService#tryDelete(Comparable)} to avoid the throw at all.
+     *
+     * @param s the message
+     * @return the exception without a stack trace
+     */
+    public static TreeException withoutStackTrace(String s) {
+        return new TreeException(s, false);
+    }
 }
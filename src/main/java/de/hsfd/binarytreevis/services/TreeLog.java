@@ -0,0 +1,345 @@
+package de.hsfd.binarytreevis.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only log of the modifications of a tree (write-ahead log), so that the tree can be recovered
+ * after the program has been stopped or has crashed, see {@link #recover(TreeService)}.
+ * <p>The tree writes every insert and delete into the log, see {@link TreeService#setLog(TreeLog)}.
+ * The operations are collected and written with one fsync per group (group commit),
+ * so an operation is only durable after its group has been committed, see {@link #commit()}.
+ * With a group size of 1 every operation is synced on its own.</p>
+ * <p>A record is the operation (1 byte), the length of the key (4 bytes), the key and a CRC32 of all that.
+ * A record which was not written completely is ignored and cut off when the log is recovered.</p>
+ * <p>After a number of operations the keys of the tree are written into a checkpoint file next to the log,
+ * and the log is emptied, see {@link #checkpoint(TreeService)}. A checkpoint costs O(n) for n keys, so it is not
+ * written by a single insert or delete, but by the batches or by {@link TreeService#checkpointIfDue()}.
+ * The recovery loads the checkpoint and replays the log.
+ * The replay is idempotent (present keys are not inserted, missing keys are not deleted),
+ * so a crash between writing the checkpoint and emptying the log does no harm.
+ * The recovered tree has the same keys, but it is rebuilt balanced, so its shape can differ.</p>
+ *
+ * @param <E> the type of the keys
+ */
+public final class TreeLog<E extends Comparable<E>> implements AutoCloseable {
+
+    public enum Operation {INSERT, DELETE, CLEAR}
+
+    private static final int CHECKPOINT_MAGIC = 0x42545643; // "BTVC"
+
+    // operation + length of the key + CRC32
+    private static final int RECORD_OVERHEAD = 1 + Integer.BYTES + Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // the key of a CLEAR
+    private static final byte[] NO_KEY = new byte[0];
+
+    private final Path checkpointFile;
+
+    private final KeyCodec<E> codec;
+
+    private final int groupSize;
+
+    private final int checkpointInterval;
+
+    private final FileChannel channel;
+
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+
+    private int pendingOperations = 0;
+
+    // operations in the log since the last checkpoint
+    private int operations = 0;
+
+    // the part of the log read by recover, null otherwise
+    private ByteBuffer input;
+
+    // the bytes of the log which have not been read into the input yet
+    private long unread;
+
+    // the key of the last record read by nextOperation
+    private byte[] lastKey;
+
+    /**
+     * Opens the log with a group size of 64 and a checkpoint every 100000 operations.
+     *
+     * @param file the file of the log, it is created if it does not exist
+     * @param codec converts the keys to bytes
+     * @throws IOException if the file cannot be opened
+     */
+    public TreeLog(Path file, KeyCodec<E> codec) throws IOException {
+        this(file, codec, 64, 100_000);
+    }
+
+    /**
+     * @param file the file of the log, it is created if it does not exist
+     * @param codec converts the keys to bytes
+     * @param groupSize the amount of operations which are synced together
+     * @param checkpointInterval the amount of operations after which a checkpoint is written
+     * @throws IOException if the file cannot be opened
+     */
+    public TreeLog(Path file, KeyCodec<E> codec, int groupSize, int checkpointInterval) throws IOException {
+        this.checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        this.codec = codec;
+        this.groupSize = Math.max(groupSize, 1);
+        this.checkpointInterval = checkpointInterval;
+        this.channel = FileChannel.open(file, READ, WRITE, CREATE);
+    }
+
+    /**
+     * Loads the checkpoint and replays the log into the tree, which should be empty.
+     * Afterward the log is attached to the tree, so that its further modifications are logged.
+     * The runs of inserts and deletes are replayed with {@link TreeService#insertAll(Iterable)}
+     * and {@link TreeService#deleteAll(Iterable)}.
+     *
+     * @param tree the tree to be recovered
+     * @throws IOException if the files cannot be read
+     * @throws TreeException if a key cannot be inserted or deleted
+     */
+    public void recover(TreeService<E> tree) throws IOException, TreeException {
+        tree.setLog(null);
+        if (Files.exists(checkpointFile)) tree.bulkLoad(readCheckpoint());
+
+        input = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        unread = channel.size();
+        channel.position(0);
+
+        Operation run = null;
+        ArrayList<E> keys = new ArrayList<>();
+        operations = 0;
+        long valid = 0; // the end of the last complete record
+        while (true) {
+            Operation operation = nextOperation();
+            if (operation == null) break;
+            valid += RECORD_OVERHEAD + lastKey.length;
+            operations++;
+            if (operation != run) {
+                replay(tree, run, keys);
+                run = operation;
+            }
+            if (operation != Operation.CLEAR) keys.add(codec.decode(lastKey));
+        }
+        replay(tree, run, keys);
+        input = null;
+
+        // cut off an incomplete record at the end
+        channel.truncate(valid);
+        channel.position(valid);
+        tree.setLog(this);
+    }
+
+    /**
+     * Adds an operation to the current group, which is committed when it is full.
+     * This is called by the tree, see {@link TreeService#setLog(TreeLog)}.
+     *
+     * @param operation the modification
+     * @param key the key of the modification, ignored for {@link Operation#CLEAR}
+     */
+    void append(Operation operation, E key) {
+        byte[] bytes = operation == Operation.CLEAR ? NO_KEY : codec.encode(key);
+        if (pending.remaining() < bytes.length + RECORD_OVERHEAD) {
+            pending = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes.length + RECORD_OVERHEAD))
+                    .put(pending.flip());
+        }
+        int start = pending.position();
+        pending.put((byte) operation.ordinal()).putInt(bytes.length).put(bytes);
+        crc.reset();
+        crc.update(pending.array(), start, pending.position() - start);
+        pending.putInt((int) crc.getValue());
+        operations++;
+        if (++pendingOperations >= groupSize) commit();
+    }
+
+    /**
+     * @return true if the log has reached the checkpoint interval
+     */
+    public boolean needsCheckpoint( ) {
+        return operations >= checkpointInterval;
+    }
+
+    /**
+     * Writes the current group of operations to the log and syncs it to the disk.
+     */
+    public void commit( ) {
+        if (pendingOperations == 0) return;
+        try {
+            pending.flip();
+            while (pending.hasRemaining()) channel.write(pending);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.clear();
+            pendingOperations = 0;
+        }
+    }
+
+    /**
+     * Writes the keys of the tree into the checkpoint file and empties the log.
+     * The checkpoint is written into a temporary file first, which then replaces the old checkpoint.
+     * It costs O(n) for n keys and three syncs, so the caller stalls for a while with a large tree.
+     *
+     * @param tree the tree of the log
+     */
+    public void checkpoint(TreeService<E> tree) {
+        commit();
+        try {
+            Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temporary, WRITE, CREATE, TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                buffer.putInt(CHECKPOINT_MAGIC).putInt(tree.getNodes().size());
+                crc.reset();
+                for (E key : tree.getNodes()) {
+                    byte[] bytes = codec.encode(key);
+                    if (buffer.remaining() < bytes.length + Integer.BYTES * 2) {
+                        write(out, buffer);
+                        if (buffer.capacity() < bytes.length + Integer.BYTES * 2) buffer = ByteBuffer.allocate(bytes.length + Integer.BYTES * 2);
+                    }
+                    buffer.putInt(bytes.length).put(bytes);
+                    crc.update(bytes);
+                }
+                buffer.putInt((int) crc.getValue());
+                write(out, buffer);
+                out.force(false);
+            }
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(checkpointFile.toAbsolutePath().getParent());
+            channel.truncate(0);
+            channel.force(false);
+            operations = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the size of the log file in bytes, without the operations which are not committed yet
+     */
+    public long size( ) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Commits the last group and closes the log.
+     */
+    @Override
+    public void close( ) {
+        try {
+            commit();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next record of the log from the {@link #input}.
+     * The length of the key is checked against the rest of the log before anything is allocated,
+     * so a damaged length does not allocate a huge key.
+     *
+     * @return the operation, or null if there is no complete and valid record
+     */
+    private Operation nextOperation( ) throws IOException {
+        if (!require(RECORD_OVERHEAD)) return null;
+        int start = input.position();
+        int ordinal = input.get(start);
+        int length = input.getInt(start + 1);
+        if (ordinal < 0 || ordinal >= Operation.values().length) return null;
+        if (length < 0 || length > input.remaining() - RECORD_OVERHEAD + unread) return null;
+        if (!require(RECORD_OVERHEAD + length)) return null;
+
+        start = input.position();
+        int end = start + 1 + Integer.BYTES + length;
+        crc.reset();
+        crc.update(input.array(), start, end - start);
+        if (input.getInt(end) != (int) crc.getValue()) return null;
+        lastKey = length == 0 ? NO_KEY : Arrays.copyOfRange(input.array(), start + 1 + Integer.BYTES, end);
+        input.position(end + Integer.BYTES);
+        return Operation.values()[ordinal];
+    }
+
+    /**
+     * Reads from the log until the {@link #input} holds at least the given amount of bytes.
+     * The input grows if a record is larger than it.
+     *
+     * @return false if the log ends before
+     */
+    private boolean require(int bytes) throws IOException {
+        if (input.remaining() >= bytes) return true;
+        if (input.remaining() + unread < bytes) return false;
+        input.compact();
+        if (input.capacity() < bytes) input = ByteBuffer.allocate(bytes).put(input.flip());
+        while (input.position() < bytes) {
+            int read = channel.read(input);
+            if (read < 0) break;
+            unread -= read;
+        }
+        input.flip();
+        return input.remaining() >= bytes;
+    }
+
+    /**
+     * Syncs the directory, so that a rename in it is durable.
+     * Windows cannot open a directory as a channel, there the rename is left to the file system.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        if (System.getProperty("os.name").startsWith("Windows")) return;
+        try (FileChannel dir = FileChannel.open(directory, READ)) {
+            dir.force(true);
+        }
+    }
+
+    private List<E> readCheckpoint( ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+        if (buffer.getInt() != CHECKPOINT_MAGIC) throw new IOException("Not a checkpoint of a tree: " + checkpointFile);
+        int count = buffer.getInt();
+        ArrayList<E> keys = new ArrayList<>(count);
+        crc.reset();
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            crc.update(bytes);
+            keys.add(codec.decode(bytes));
+        }
+        if (buffer.getInt() != (int) crc.getValue()) throw new IOException("The checkpoint is damaged: " + checkpointFile);
+        return keys;
+    }
+
+    private void replay(TreeService<E> tree, Operation operation, ArrayList<E> keys) throws TreeException {
+        if (operation == null) return;
+        switch (operation) {
+            case INSERT -> tree.insertAll(keys);
+            case DELETE -> tree.deleteAll(keys);
+            case CLEAR -> tree.clear();
+        }
+        keys.clear();
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+}
@@ -1,8 +1,10 @@
 package de.hsfd.binarytreevis.services;
 
+import java.util.ArrayDeque;
+
 @Author(name = "Ankit Sharma", date = "12 Oct 2018")
 @Author(name = "Agha Muhammad Aslam", date = "12 Dec 2023")
-public class TreeNode<E extends Comparable<E>> {
+public class TreeNode<E extends Comparable<E>> implements BinaryNode<E> {
     public TreeNode(E e){
         data = e;
         if(data == null) this.height = DEFAULT_HEIGHT - 1 ;
@@ -23,7 +25,9 @@ public class TreeNode<E extends Comparable<E>> {
     }
 
     public void setColor(COLOR color) {
+        if (this.color == color) return;
         this.color = color;
+        invalidate();
     }
 
     /**
@@ -39,6 +43,19 @@ public class TreeNode<E extends Comparable<E>> {
 
     private COLOR color = null;
 
+    /**
+     * The immutable version of this subtree, created by {@link #freeze()}.
+     * Null if this node or one of its descendants has been changed since then.
+     */
+    private PersistentNode<E> persistent;
+
+    /**
+     * The amount of keys in this subtree, see {@link #size()}.
+     * It is only valid if sizeValid is true, it is invalidated together with {@link #persistent}.
+     */
+    private int size;
+    private boolean sizeValid;
+
     public boolean isLeaf() {
         return left == null && right == null;
     }
@@ -48,7 +65,9 @@ public class TreeNode<E extends Comparable<E>> {
     }
 
     public void setData(E data) {
+        if (this.data == data) return;
         this.data = data;
+        invalidate();
     }
 
     public TreeNode<E> getLeft( ) {
@@ -61,6 +80,7 @@ public class TreeNode<E extends Comparable<E>> {
         // does not have the connection to the parent or predecessor.
         if (this.left != null) this.left.parent = null;
         this.left = n;
+        invalidate();
     }
 
     public TreeNode<E> getRight( ) {
@@ -73,6 +93,7 @@ public class TreeNode<E extends Comparable<E>> {
         // does not have the connection to the parent or predecessor.
         if (this.right != null) this.right.parent = null;
         this.right = n;
+        invalidate();
     }
 
     public int getHeight( ) {
@@ -80,7 +101,9 @@ public class TreeNode<E extends Comparable<E>> {
     }
 
     public void setHeight( int height ) {
+        if (this.height == height) return;
         this.height = height;
+        invalidate();
     }
 
     /**
@@ -99,28 +122,187 @@ public class TreeNode<E extends Comparable<E>> {
                 TreeNode<E> parent = n.parent;
                 if (parent.right == n) parent.right = null;
                 else parent.left = null;
+                parent.invalidate();
             }
             //this node should be n's parent
             n.parent = this;
         }
     }
 
+    /**
+     * Returns the immutable version of this subtree.
+     * <p>Only the nodes that have been changed since the last call (and their ancestors) are copied,
+     * the unchanged subtrees of the previous version are shared. Therefore, the versions of a balanced tree
+     * cost O(log n) per insert or delete instead of a copy of the whole tree.</p>
+     * <p>Nodes without data are copied as well, like {@link #copyWithSubtreeOf(TreeNode)} does.</p>
+     *
+     * @return the persistent version of this subtree
+     */
+    public PersistentNode<E> freeze( ) {
+        if (persistent != null) return persistent;
+
+        // post-order without recursion, so that degenerated trees do not overflow the stack
+        ArrayDeque<TreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            TreeNode<E> current = stack.peek();
+            boolean childrenFrozen = true;
+            if (current.right != null && current.right.persistent == null) {
+                stack.push(current.right);
+                childrenFrozen = false;
+            }
+            if (current.left != null && current.left.persistent == null) {
+                stack.push(current.left);
+                childrenFrozen = false;
+            }
+            if (childrenFrozen) {
+                stack.pop();
+                current.persistent = new PersistentNode<>(current.data,
+                        current.left == null ? null : current.left.persistent,
+                        current.right == null ? null : current.right.persistent,
+                        current.color, current.height);
+            }
+        }
+        return persistent;
+    }
+
+    /**
+     * Returns the amount of keys in this subtree.
+     * <p>The sizes are cached in the nodes. Every change of a node (also by the rotations and the deletes)
+     * invalidates the sizes of the node and its ancestors, like the persistent version of {@link #freeze()}.
+     * Only these nodes are counted again, so that the size costs O(log n) per insert or delete
+     * of a balanced tree since the last call.</p>
+     *
+     * @return the amount of keys in this subtree, the nodes without data are not counted
+     */
+    @Override
+    public int size( ) {
+        if (sizeValid) return size;
+
+        // post-order without recursion, only through the invalid nodes
+        ArrayDeque<TreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            TreeNode<E> current = stack.peek();
+            boolean childrenCounted = true;
+            if (current.right != null && !current.right.sizeValid) {
+                stack.push(current.right);
+                childrenCounted = false;
+            }
+            if (current.left != null && !current.left.sizeValid) {
+                stack.push(current.left);
+                childrenCounted = false;
+            }
+            if (childrenCounted) {
+                stack.pop();
+                current.size = (current.data != null ? 1 : 0)
+                        + (current.left == null ? 0 : current.left.size)
+                        + (current.right == null ? 0 : current.right.size);
+                current.sizeValid = true;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Marks this node and its ancestors as changed, so that {@link #freeze()} copies them again
+     * and {@link #size()} counts them again.
+     * <p>If a node is changed, its ancestors are changed as well. So the walk can stop at the
+     * first ancestor that is already marked.</p>
+     */
+    private void invalidate( ) {
+        for (TreeNode<E> n = this; n != null && (n.persistent != null || n.sizeValid); n = n.parent) {
+            n.persistent = null;
+            n.sizeValid = false;
+        }
+    }
+
     @Override
     public String toString() {
         // return element and left and right elements
         return data + ": (l: " + left + ", r:" + right + ")";
     }
 
+    /**
+     * Copies the subtree of root, including the data, color and height of every node.
+     * The copy is done with an explicit stack, so that degenerated trees (e.g. a BST of sorted keys)
+     * do not overflow the call stack.
+     *
+     * @param root the root of the subtree to be copied
+     * @return the root of the copy, or null if root is null
+     */
     public TreeNode<E> copyWithSubtreeOf( TreeNode<E> root) {
         if (root == null) {
             return null;
         }
 
-        TreeNode<E> copied;
-        copied = new TreeNode<>(root.getData(), root.color);
+        TreeNode<E> copiedRoot = copyOf(root);
+        // pairs of (original, copy) whose children still have to be copied
+        ArrayDeque<TreeNode<E>> originals = new ArrayDeque<>();
+        ArrayDeque<TreeNode<E>> copies = new ArrayDeque<>();
+        originals.push(root);
+        copies.push(copiedRoot);
+        while (!originals.isEmpty()) {
+            TreeNode<E> original = originals.pop();
+            TreeNode<E> copied = copies.pop();
+            if (original.left != null) {
+                copied.setLeft(copyOf(original.left));
+                originals.push(original.left);
+                copies.push(copied.left);
+            }
+            if (original.right != null) {
+                copied.setRight(copyOf(original.right));
+                originals.push(original.right);
+                copies.push(copied.right);
+            }
+        }
+        return copiedRoot;
+    }
+
+    /**
+     * Builds a mutable tree from a persistent version, the reverse of {@link #freeze()}.
+     * The nodes remember the version, so that the next freeze shares the unchanged subtrees with it.
+     *
+     * @param version the persistent version of the tree
+     * @return the root of the new tree, or null if version is null
+     */
+    public static <E extends Comparable<E>> TreeNode<E> thaw( PersistentNode<E> version ) {
+        if (version == null) return null;
+
+        TreeNode<E> root = thawOf(version);
+        ArrayDeque<TreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TreeNode<E> node = stack.pop();
+            PersistentNode<E> frozen = node.persistent;
+            if (frozen.getLeft() != null) {
+                node.left = thawOf(frozen.getLeft());
+                node.left.parent = node;
+                stack.push(node.left);
+            }
+            if (frozen.getRight() != null) {
+                node.right = thawOf(frozen.getRight());
+                node.right.parent = node;
+                stack.push(node.right);
+            }
+        }
+        return root;
+    }
+
+    private static <E extends Comparable<E>> TreeNode<E> thawOf( PersistentNode<E> frozen ) {
+        TreeNode<E> node = new TreeNode<>(frozen.getData(), frozen.getColor());
+        node.height = frozen.getHeight();
+        node.persistent = frozen;
+        node.size = frozen.size();
+        node.sizeValid = true;
+        return node;
+    }
 
-        copied.setLeft(copyWithSubtreeOf(root.getLeft()));
-        copied.setRight(copyWithSubtreeOf(root.getRight()));
+    private static <E extends Comparable<E>> TreeNode<E> copyOf( TreeNode<E> node ) {
+        TreeNode<E> copied = new TreeNode<>(node.data, node.color);
+        copied.height = node.height;
+        copied.size = node.size;
+        copied.sizeValid = node.sizeValid;
         return copied;
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package de.hsfd.binarytreevis.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The record of the modification steps of a tree, shown in the history panel (TreeController.java).
+ * It contains the textual steps and the snapshots of the tree.
+ * The snapshots are only rendered into SVG when the record is rendered, see {@link #render()}.
+ * <p>The append methods can be chained like the ones of a StringBuilder.</p>
+ */
+public class TreeRecord {
+
+    // either a StringBuilder (text) or a TreeSnapshot
+    private final ArrayList<Object> parts = new ArrayList<>();
+
+    private StringBuilder text;
+
+    public TreeRecord append( String s ) {
+        currentText().append(s);
+        return this;
+    }
+
+    public TreeRecord append( Object o ) {
+        currentText().append(o);
+        return this;
+    }
+
+    /**
+     * Appends all steps of another record. The snapshots are shared, not copied.
+     * @param other the record to be appended
+     * @return this record
+     */
+    public TreeRecord append( TreeRecord other ) {
+        for (Object part : other.parts) {
+            if (part instanceof TreeSnapshot snapshot) append(snapshot);
+            else currentText().append((StringBuilder) part);
+        }
+        return this;
+    }
+
+    public TreeRecord append( TreeSnapshot snapshot ) {
+        parts.add(snapshot);
+        text = null;
+        return this;
+    }
+
+    public boolean isEmpty( ) {
+        return parts.isEmpty();
+    }
+
+    /**
+     * @return a new record with the same steps. Further appends do not change this record.
+     */
+    public TreeRecord copy( ) {
+        return new TreeRecord().append(this);
+    }
+
+    /**
+     * Renders the record as text, the snapshots of the tree are rendered as SVG.
+     * @return the rendered record
+     */
+    public String render( ) {
+        StringBuilder result = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof TreeSnapshot snapshot) result.append(snapshot.render());
+            else result.append((StringBuilder) part);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString( ) {
+        return render();
+    }
+
+    /**
+     * @return the steps of the record, either a StringBuilder (text) or a {@link TreeSnapshot}
+     */
+    List<Object> parts( ) {
+        return Collections.unmodifiableList(parts);
+    }
+
+    private StringBuilder currentText( ) {
+        if (text == null) {
+            text = new StringBuilder();
+            parts.add(text);
+        }
+        return text;
+    }
+}
@@ -2,9 +2,19 @@ package de.hsfd.binarytreevis.services;
 
 import de.hsfd.binarytreevis.TreePrinter;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -16,33 +26,99 @@ import java.util.function.Consumer;
  */
 @Author(name = "Ankit Sharma", date = "12 Oct 2018")
 @Author(name = "Agha Muhammad Aslam", date = "12 Dec 2023")
-public abstract class TreeService<E extends Comparable<E>> {
+public abstract class TreeService<E extends Comparable<E>> implements Iterable<E> {
 
-    public TreeService( ) {}
+    public TreeService( ) {
+        this((Comparator<? super E>) null);
+    }
+
+    /**
+     * @param comparator the order of the keys, or null for their natural order ({@link Comparable#compareTo(Object)})
+     */
+    public TreeService( Comparator<? super E> comparator ) {
+        this.comparator = comparator;
+    }
 
+    /**
+     * Copies the whole tree in O(n), so that the copy can be modified independently.
+     * A read-only version of the tree costs only O(1), see {@link #snapshot()}.
+     *
+     * @param tree the tree to be copied
+     */
     public TreeService( TreeService<E> tree) {
         this.root = tree.root == null ? null : tree.root.copyWithSubtreeOf(tree.root);
         this.size = tree.size;
-        this.record = tree.record;
+        this.record = tree.record.copy();
         this.nodes.addAll(tree.nodes);
         this.recordList.addAll(tree.recordList);
         this.status = tree.status;
         this.historyService = tree.historyService;
+        this.recordingMode = tree.recordingMode;
+        this.comparator = tree.comparator;
     }
 
+    /**
+     * Defines how much of a modification is recorded for the history.
+     * <ul>
+     *     <li>OFF: nothing is recorded. The tree algorithms run without any recording cost,
+     *     e.g. for loading a big amount of data.</li>
+     *     <li>TEXT_ONLY: only the textual steps are recorded, the tree is not rendered as image.</li>
+     *     <li>FULL: the textual steps and the tree images (SVG) are recorded. This is the default.</li>
+     * </ul>
+     */
+    public enum RecordingMode {OFF, TEXT_ONLY, FULL}
+
+    /**
+     * The result of {@link #tryInsert(Comparable)} and {@link #tryDelete(Comparable)}.
+     * DUPLICATE and NOT_FOUND are the outcomes which {@link #main_insert(Comparable)} and {@link #delete(Comparable)}
+     * report with a {@link TreeException}.
+     */
+    public enum Outcome {INSERTED, DELETED, DUPLICATE, NOT_FOUND}
+
     protected int size = 0;
 
+    /**
+     * The order of the keys, null for their natural order. Every descent compares the key only once per node.
+     */
+    private final Comparator<? super E> comparator;
+
     private TreeNode<E> root;
 
-    private String record = "";
+    private TreeRecord record = new TreeRecord();
+
+    /**
+     * The keys in the order of insertion. A linked hash set, so that a delete removes its key in O(1).
+     */
+    private final LinkedHashSet<E> nodes = new LinkedHashSet<>();
 
-    private final ArrayList<E> nodes = new ArrayList<>();
+    /**
+     * The status shows at most this amount of the last inserted keys, see {@link #updateCurrentStatus()}.
+     */
+    static final int STATUS_LIMIT = 100;
 
-    private final ArrayList<String> recordList = new ArrayList<>();
+    private final ArrayList<TreeRecord> recordList = new ArrayList<>();
 
     private Consumer<String> status = _ -> {};
 
-    private Consumer<String> historyService = _ -> {};
+    private Consumer<TreeRecord> historyService = _ -> {};
+
+    private RecordingMode recordingMode = RecordingMode.FULL;
+
+    /**
+     * True while a batch is applied, see {@link #insertAll(Iterable)} and {@link #deleteAll(Iterable)}.
+     * The status and the history are then only updated once at the end of the batch.
+     */
+    private boolean inBatch = false;
+
+    private TreeLog<E> log;
+
+    /**
+     * The version of the tree after the last modification, see {@link #snapshot()}.
+     * It is null until the first snapshot is taken, so that a tree without snapshots does not pay for them.
+     */
+    private volatile TreeView<E> published;
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
 
     public void setRoot( TreeNode<E> root ) {
         this.root = root;
@@ -52,14 +128,76 @@ public abstract class TreeService<E extends Comparable<E>> {
         return root;
     }
 
-    public ArrayList<E> getNodes( ) {
+    /**
+     * @return the order of the keys, or null if the keys are in their natural order
+     */
+    public Comparator<? super E> comparator( ) {
+        return comparator;
+    }
+
+    /**
+     * Compares two keys by the order of the tree, see {@link #comparator()}.
+     * @return a negative number, zero, or a positive number as a is smaller than, equal to, or bigger than b
+     */
+    protected final int compare( E a, E b ) {
+        return compare(comparator, a, b);
+    }
+
+    static <E extends Comparable<E>> int compare( Comparator<? super E> comparator, E a, E b ) {
+        return comparator == null ? a.compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * @return the keys of the tree in the order of insertion
+     */
+    public LinkedHashSet<E> getNodes( ) {
         return nodes;
     }
 
-    public ArrayList<String> getRecordList( ) {
+    /**
+     * Each element is the record of one modification (insert or delete) only,
+     * see {@link #renderHistory(int)} to get the whole history until a modification.
+     * @return the records of the modifications
+     */
+    public ArrayList<TreeRecord> getRecordList( ) {
         return recordList;
     }
 
+    /**
+     * Renders the records of all modifications from the first one until the given index.
+     * @param index the index of the last modification in the recordList (inclusive)
+     * @return the rendered history
+     */
+    public String renderHistory( int index ) {
+        StringBuilder history = new StringBuilder();
+        for (int i = 0; i <= index; i++) history.append(recordList.get(i).render());
+        return history.toString();
+    }
+
+    public RecordingMode getRecordingMode( ) {
+        return recordingMode;
+    }
+
+    /**
+     * Sets how much of the next modifications should be recorded.
+     * <p>With {@link RecordingMode#OFF} the modifications will not be added to the recordList
+     * and the history service will not be notified.</p>
+     * @param recordingMode the new recording mode
+     */
+    public void setRecordingMode( RecordingMode recordingMode ) {
+        this.recordingMode = recordingMode;
+    }
+
+    /**
+     * Checks whether the modifications should be recorded at all.
+     * The string concatenation of a record should be guarded with this method,
+     * so that there is no recording cost if the recording mode is {@link RecordingMode#OFF}.
+     * @return false if the recording mode is OFF, otherwise true
+     */
+    protected boolean isRecording( ) {
+        return recordingMode != RecordingMode.OFF;
+    }
+
     public E lastInserted() {
         if (nodes.isEmpty()) throw new NoSuchElementException("There is no element in the nodes list.\n please check again the implementation in the TreeService class.\n");
         return nodes.getLast();
@@ -68,9 +206,10 @@ public abstract class TreeService<E extends Comparable<E>> {
     public boolean search( E e) {
         TreeNode<E> current = root;
         while (current != null) {
-            if (e.compareTo(current.getData()) < 0)
+            int cmp = compare(e, current.getData());
+            if (cmp < 0)
                 current = current.getLeft();
-            else if (e.compareTo(current.getData()) > 0)
+            else if (cmp > 0)
                 current = current.getRight();
             else
                 return true;
@@ -88,30 +227,101 @@ public abstract class TreeService<E extends Comparable<E>> {
      */
     public void setStatus(Consumer<String> init ) {
         this.status = init;
-        this.status.accept(nodes.toString()); // show the empty tree (no inserted nodes)
+        this.status.accept(statusOfNodes()); // show the empty tree (no inserted nodes)
     }
 
     /**
      * Sets the history service to the provided Consumer.
      *  <p>This function should only be called in the controller classes only to update the logs in UI</p>
-     * @param historyService a Consumer that processes history related data represented as a String
+     * @param historyService a Consumer that processes history related data represented as a TreeRecord.
+     *                       It receives the record of the last modification only,
+     *                       which has already been added to the recordList.
      */
-    public void setHistoryService(Consumer<String> historyService) {
+    public void setHistoryService(Consumer<TreeRecord> historyService) {
         this.historyService = historyService;
     }
 
+    /**
+     * Replaces the tree and its history, see {@link TreeArchive#read}.
+     * <p>An attached {@link TreeLog} stays attached: it gets a CLEAR and an INSERT for every restored key,
+     * so that the recovery yields the restored tree.</p>
+     *
+     * @param version the version of the tree to be restored
+     * @param keys the keys of the tree in the order of insertion
+     * @param records the records of the history
+     */
+    void restore(PersistentNode<E> version, List<E> keys, List<TreeRecord> records) {
+        root = TreeNode.thaw(version);
+        size = keys.size();
+        nodes.clear();
+        nodes.addAll(keys);
+        recordList.clear();
+        recordList.addAll(records);
+        record = new TreeRecord();
+        updateCurrentStatus();
+        publish();
+        logReplacement(keys);
+    }
+
+    /**
+     * Sets the log which gets every insert and delete of the tree, so that the tree can be recovered.
+     * It is set by {@link TreeLog#recover(TreeService)}.
+     * @param log the log of the tree, or null to stop logging
+     */
+    public void setLog(TreeLog<E> log) {
+        this.log = log;
+    }
+
+    /**
+     * Writes a checkpoint of the log, if there is one and it has reached its checkpoint interval,
+     * see {@link TreeLog#checkpoint(TreeService)}.
+     * <p>The checkpoint writes and syncs all keys, so it stalls the caller for O(n).
+     * That is why {@link #main_insert(Comparable)} and {@link #delete(Comparable)} never write one,
+     * only the batches and the bulk loads do. Call this method where a stall does not matter,
+     * e.g. when the application is idle or before it is closed, so that the log does not grow without bound.</p>
+     *
+     * @return true if a checkpoint has been written
+     */
+    public boolean checkpointIfDue( ) {
+        if (log == null || !log.needsCheckpoint()) return false;
+        log.checkpoint(this);
+        return true;
+    }
+
     /**
      * A Special method to record the modification of the tree
      * Updates the current status of the tree.
      * Showing the inserted nodes int the tree from left to right.
+     * <p>Nothing happens if the recording mode is {@link RecordingMode#OFF}.</p>
+     * <p>Only the last {@value #STATUS_LIMIT} inserted keys are shown, so that the status costs the same
+     * for every size of the tree.</p>
      */
     public void updateCurrentStatus( ) {
-        status.accept(nodes.toString());
+        if (!isRecording() || inBatch) return;
+        status.accept(statusOfNodes());
+    }
+
+    /**
+     * @return the keys like {@code nodes.toString()}, but only the last {@value #STATUS_LIMIT} ones,
+     * e.g. {@code [... 900 more, 900, 901, ...]}
+     */
+    private String statusOfNodes( ) {
+        if (nodes.size() <= STATUS_LIMIT) return nodes.toString();
+        ArrayDeque<E> last = new ArrayDeque<>(STATUS_LIMIT);
+        Iterator<E> reversed = nodes.reversed().iterator();
+        for (int i = 0; i < STATUS_LIMIT; i++) last.push(reversed.next());
+        StringBuilder status = new StringBuilder("[... ").append(nodes.size() - STATUS_LIMIT).append(" more");
+        for (E key : last) status.append(", ").append(key);
+        return status.append(']').toString();
     }
 
     /**
      * A Special method to record the modification of the tree
      * Add some strings to the rec indicates the process of modification within the tree.
+     * The record will be prefixed with the class and method name that calls this method.
+     * <p>
+     * Please prefer {@link #addRecord(String, String)} inside the tree algorithms,
+     * because finding the calling method needs a walk through the stack. </p>
      * <p>
      * Remember to add a new line character at the end of the string! </p>
      * <p>
@@ -119,22 +329,65 @@ public abstract class TreeService<E extends Comparable<E>> {
      * @param rec the string to be added to the record
      */
     public void addRecord( String rec) {
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        String className = stackTrace[2].getClassName().substring(stackTrace[2].getClassName().lastIndexOf('.') + 1);
-        String methodName = stackTrace[2].getMethodName();
-        record += (className + "." + methodName + ":\n"+ rec + "\n");
+        if (!isRecording()) return;
+        addRecord(callerOfAddRecord(), rec);
+    }
+
+    /**
+     * A Special method to record the modification of the tree
+     * Add some strings to the rec indicates the process of modification within the tree.
+     * <p>
+     * Remember to add a new line character at the end of the string! </p>
+     * <p>
+     * Remember to call acceptRecordInHistory() method after finishing the modification! </p>
+     * @param step the step of the modification, usually the class and method name e.g. "RBTree.RBInsertFixup"
+     * @param rec the string to be added to the record
+     */
+    public void addRecord( String step, String rec) {
+        if (!isRecording()) return;
+        record.append(step).append(":\n").append(rec).append("\n");
+    }
+
+    /**
+     * A Special method to record the modification of the tree.
+     * Same as {@link #addRecord(String, String)}, but the record can also contain snapshots of the tree,
+     * see {@link #recordTreeAsImage(TreeNode, TreeRecord)}.
+     * @param step the step of the modification, usually the class and method name e.g. "RBTree.RBInsertFixup"
+     * @param rec the record to be added
+     */
+    public void addRecord( String step, TreeRecord rec) {
+        if (!isRecording()) return;
+        record.append(step).append(":\n").append(rec).append("\n");
+    }
+
+    /**
+     * Only walks the frames up to the caller of {@link #addRecord(String)} instead of capturing the whole stack trace.
+     * @return the simple class name and the method name that calls addRecord
+     */
+    private static String callerOfAddRecord( ) {
+        // frame 0: this method, frame 1: addRecord, frame 2: the caller of addRecord
+        return STACK_WALKER.walk(frames -> frames.skip(2)
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+                .orElse("unknown"));
     }
 
     /**
      * A Special method to record the modification of the tree. <br/>
      * Accepts the record in the history.
-     * After calling this method, the record will be added to the recordList.
+     * After calling this method, the record will be added to the recordList
+     * and a new record for the next modification begins.
      * It will be later used in the history panel (TreeController.java)
      * as a history's record of each modification's state.
+     * <p>Nothing happens if the recording mode is {@link RecordingMode#OFF} or while a batch is applied.
+     * The records of all modifications of a batch are accepted together as one entry.</p>
      */
     public void acceptRecordInHistory() {
-        historyService.accept(record);
-        recordList.add(record);
+        if (!isRecording() || inBatch) return;
+        TreeRecord entry = record;
+        record = new TreeRecord();
+        recordList.add(entry);
+        historyService.accept(entry);
     }
 
     @Override
@@ -164,46 +417,351 @@ public abstract class TreeService<E extends Comparable<E>> {
             return false;
         }
 
-        return equals(this.getRoot(), other.getRoot());
+        return equalTrees(this.getRoot(), other.getRoot());
     }
 
     /**
-     * Recursive helper function to check if two tree nodes and its children are equal.
+     * Helper function to check if two tree nodes and its children are equal.
+     * The nodes can be live nodes of a tree or frozen ones, see {@link #freeze()}.
+     * The trees are walked with an explicit stack, so that degenerated trees do not overflow the call stack.
      *
      * @param node1 the first node.
      * @param node2 the second node.
      * @return true if nodes are identical, false otherwise.
      */
-    private boolean equals(TreeNode<?> node1, TreeNode<?> node2) {
-        if(node1 == null && node2 == null) return true;
-        if(node1 == null || node2 == null) return false;
+    public static boolean equalTrees(BinaryNode<?> node1, BinaryNode<?> node2) {
+        ArrayDeque<BinaryNode<?>> stack1 = new ArrayDeque<>();
+        ArrayDeque<BinaryNode<?>> stack2 = new ArrayDeque<>();
+        BinaryNode<?> n1 = node1, n2 = node2;
+        while (true) {
+            if (n1 != n2) { // the same node: also the shared subtrees of the frozen versions
+                if (n1 == null || n2 == null) return false;
+
+                // Return false if the node's values are not equal
+                // Else continue to check the left and right nodes
+                if (!Objects.equals(n1.getData(), n2.getData())
+                        || n1.getColor() != n2.getColor()) return false; // check if both nodes are red or black
+                BinaryNode<?> right1 = n1.getRight(), right2 = n2.getRight();
+                if (right1 != right2) {
+                    if (right1 == null || right2 == null) return false;
+                    stack1.push(right1);
+                    stack2.push(right2);
+                }
+                n1 = n1.getLeft();
+                n2 = n2.getLeft();
+                continue;
+            }
+            // ArrayDeque does not accept null, so equal right subtrees (e.g. both empty) are not pushed
+            if (stack1.isEmpty()) return true;
+            n1 = stack1.pop();
+            n2 = stack2.pop();
+        }
+    }
+
+    /**
+     * Returns the current version of the tree as immutable nodes.
+     * The subtrees that have not been changed since the last version are shared with it,
+     * so that a version of a balanced tree costs O(log n) per modification.
+     * This is how the history of the visualisation keeps every version of the tree.
+     *
+     * @return the root of the persistent version, or null if the tree is empty
+     * @see TreeNode#freeze()
+     */
+    public PersistentNode<E> freeze( ) {
+        return root == null ? null : root.freeze();
+    }
+
+    /**
+     * Returns a read-only version of the tree, which is not affected by the following modifications.
+     * <p>After the first snapshot, every modification publishes its version at the end
+     * (the path copying of {@link #freeze()}, O(log n) for the balanced trees). The snapshots afterward cost O(1)
+     * and can be taken by any thread without blocking the thread that modifies the tree.
+     * A batch ({@link #insertAll(Iterable)}, {@link #deleteAll(Iterable)}) is published as a whole.</p>
+     * <p>The first call freezes the whole tree, so it must be made by the thread that modifies the tree,
+     * or while no modification is running (e.g. {@link ConcurrentTree#snapshot()}).</p>
+     *
+     * @return the version of the tree after the last modification
+     */
+    public TreeView<E> snapshot( ) {
+        TreeView<E> view = published;
+        if (view == null) {
+            view = new TreeView<>(freeze(), size, comparator);
+            published = view;
+        }
+        return view;
+    }
+
+    /**
+     * @return the last published version, or null if no snapshot has been taken yet
+     */
+    TreeView<E> lastSnapshot( ) {
+        return published;
+    }
 
-        // Return false if the node's values are not equal
-        // Else continue to check the left and right nodes
-        return node1.getData().equals(node2.getData())
-                && node1.getColor() == node2.getColor() // check if both nodes are red or black
-                && equals(node1.getLeft(), node2.getLeft())
-                && equals(node1.getRight(), node2.getRight());
+    /**
+     * Publishes the version of the tree for the next {@link #snapshot()}, if there have been snapshots before.
+     */
+    private void publish( ) {
+        if (published != null) published = new TreeView<>(freeze(), size, comparator);
     }
     
     
+    /**
+     * Adds all keys to the tree at once, without rotations and without recording every insert.
+     * The keys are sorted and the duplicates (also the keys which are already in the tree) are removed.
+     * Then the tree is rebuilt height-balanced, see {@link #fromSorted(Comparable[])}.
+     * <p>Sorting is O(m log m) for m new keys, but only O(m) if they are already sorted.
+     * Everything else is O(n + m).</p>
+     *
+     * @param keys the keys to be added, in any order
+     */
+    public void bulkLoad(Iterable<E> keys) {
+        ArrayList<E> added = new ArrayList<>();
+        keys.forEach(added::add);
+        added.sort(comparator);
+
+        // merge the new keys with the (sorted) keys of the tree, without duplicates
+        ArrayList<E> sorted = new ArrayList<>(size + added.size());
+        ArrayList<E> newKeys = new ArrayList<>(added.size());
+        ArrayDeque<TreeNode<E>> stack = new ArrayDeque<>();
+        TreeNode<E> current = root;
+        int i = 0;
+        while (current != null || !stack.isEmpty()) {
+            while (current != null) {
+                stack.push(current);
+                current = current.getLeft();
+            }
+            current = stack.pop();
+            E key = current.getData();
+            for (; i < added.size() && compare(added.get(i), key) < 0; i++) {
+                addIfGreater(added.get(i), sorted, newKeys);
+            }
+            addIfGreater(key, sorted, null);
+            current = current.getRight();
+        }
+        for (; i < added.size(); i++) addIfGreater(added.get(i), sorted, newKeys);
+
+        nodes.addAll(newKeys);
+        load(sorted, "TreeService.bulkLoad", "\n- Load " + newKeys.size() + " keys into the tree\n");
+        logAll(TreeLog.Operation.INSERT, newKeys);
+    }
+
+    private void addIfGreater(E key, ArrayList<E> sorted, ArrayList<E> newKeys) {
+        if (!sorted.isEmpty() && compare(sorted.getLast(), key) >= 0) return; // duplicate
+        sorted.add(key);
+        if (newKeys != null) newKeys.add(key);
+    }
+
+    /**
+     * Replaces the content of the tree with the given keys in O(n).
+     * The tree is built height-balanced directly, so there are no rotations.
+     * Each subclass defines the heights and colors of the nodes, see {@link #newBulkNode(Comparable, int, int)}.
+     *
+     * @param sorted the keys in strictly ascending order
+     * @throws TreeException if the keys are not sorted or contain duplicates
+     */
+    public void fromSorted(E[] sorted) throws TreeException {
+        for (int i = 1; i < sorted.length; i++) {
+            if (compare(sorted[i - 1], sorted[i]) >= 0)
+                throw new TreeException("The keys must be sorted in ascending order without duplicates: "
+                                                + sorted[i - 1] + " is followed by " + sorted[i]);
+        }
+        List<E> keys = Arrays.asList(sorted);
+        nodes.clear();
+        nodes.addAll(keys);
+        load(keys, "TreeService.fromSorted", "\n- Build the tree from " + sorted.length + " sorted keys\n");
+        logReplacement(keys);
+    }
+
+    /**
+     * Removes all keys from the tree, like {@link #fromSorted(Comparable[])} without keys.
+     * It is used to replay {@link TreeLog.Operation#CLEAR}.
+     */
+    void clear( ) {
+        nodes.clear();
+        load(List.of(), "TreeService.clear", "\n- Remove all keys from the tree\n");
+        log(TreeLog.Operation.CLEAR, null);
+    }
+
+    private void load(List<E> sorted, String step, String rec) {
+        // the deepest level of a tree of n nodes built by halving, where the root is at depth 0
+        int deepest = 31 - Integer.numberOfLeadingZeros(Math.max(sorted.size(), 1));
+        root = buildBalanced(sorted, 0, sorted.size(), 0, deepest);
+        size = sorted.size();
+        updateCurrentStatus();
+        publish();
+
+        if (isRecording()) {
+            TreeRecord record = new TreeRecord().append(rec);
+            recordTreeAsImage(root, record);
+            addRecord(step, record);
+        }
+        acceptRecordInHistory();
+    }
+
+    /**
+     * Builds the keys from (inclusive) until to (exclusive) as a balanced subtree.
+     * The middle key is the root, so the depth is only O(log n).
+     *
+     * @return the root of the subtree, or null if the range is empty
+     */
+    private TreeNode<E> buildBalanced(List<E> sorted, int from, int to, int depth, int deepest) {
+        if (from >= to) return null;
+        int mid = (from + to) >>> 1;
+        TreeNode<E> node = newBulkNode(sorted.get(mid), depth, deepest);
+        TreeNode<E> left = buildBalanced(sorted, from, mid, depth + 1, deepest);
+        TreeNode<E> right = buildBalanced(sorted, mid + 1, to, depth + 1, deepest);
+        if (left != null) node.setLeft(left);
+        if (right != null) node.setRight(right);
+        node.setHeight(Math.max(height(left), height(right)) + 1);
+        return node;
+    }
+
+    /**
+     * Creates a node for {@link #bulkLoad(Iterable)} and {@link #fromSorted(Comparable[])}.
+     * The built tree is complete, all levels are full except the deepest one.
+     * The height of the node is set after its children are built.
+     *
+     * @param data the key of the node
+     * @param depth the depth of the node, the root is at depth 0
+     * @param deepest the depth of the deepest level of the built tree
+     * @return the new node
+     */
+    protected TreeNode<E> newBulkNode(E data, int depth, int deepest) {
+        return new TreeNode<>(data);
+    }
+
     // Agha implementation
 
     /**
      * Inserts a new element into the binary tree while maintaining its structure.
      * This is an abstract method, and its implementation should define the specific
      * logic for insertion based on the type of binary tree (e.g., Binary Search Tree, AVL Tree, etc.).
-     * <p>Please implement the {@link TreeService#insertNode(TreeNode)} function to this method,
-     * so that it will be inserted directly into the respected position.</p>
+     * <p>The trees delegate to {@link #insertIfNew(Comparable)} and throw if it returns false,
+     * so that the balancing is only implemented once.</p>
      * <p> Idea Inspired from AlgoDS Lecture HS Fulda 24/25 </p>
      * @param data the value to be inserted into the binary tree. Must implement the Comparable interface
      * to allow comparisons with other elements in the tree.
      */
     protected abstract void insert(E data) throws TreeException;
 
+    /**
+     * Inserts the key like {@link #insert(Comparable)}, but only if it is not in the tree yet.
+     * <p>Please implement the {@link TreeService#insertNodeIfAbsent(TreeNode)} function to this method,
+     * so that the tree is only descended once.</p>
+     *
+     * @param data the key to be inserted
+     * @return false if the key is already in the tree, then nothing is changed or recorded
+     * @throws TreeException if the self-balancing violates the rules of the tree
+     */
+    protected abstract boolean insertIfNew(E data) throws TreeException;
+
     public void main_insert(E data) throws TreeException {
         insert(data);
+        log(TreeLog.Operation.INSERT, data);
+        this.acceptRecordInHistory();
+        publish();
+    }
+
+    /**
+     * Inserts the key like {@link #main_insert(Comparable)}, if it is not in the tree yet.
+     * A duplicate is not an error here: the tree is descended only once to find the parent of the key or the key itself,
+     * so there is no {@link #search(Comparable)} needed before.
+     *
+     * @param data the key to be inserted
+     * @return true if the key has been inserted, false if it is already in the tree
+     * @throws TreeException if the self-balancing violates the rules of the tree
+     */
+    public boolean insertIfAbsent(E data) throws TreeException {
+        if (!insertIfNew(data)) return false;
+        log(TreeLog.Operation.INSERT, data);
         this.acceptRecordInHistory();
+        publish();
+        return true;
+    }
+
+    /**
+     * Inserts the key like {@link #insertIfAbsent(Comparable)}, for the callers which rather check a status.
+     *
+     * @param data the key to be inserted
+     * @return INSERTED, or DUPLICATE if the key is already in the tree
+     * @throws TreeException if the self-balancing violates the rules of the tree
+     */
+    public Outcome tryInsert(E data) throws TreeException {
+        return insertIfAbsent(data) ? Outcome.INSERTED : Outcome.DUPLICATE;
+    }
+
+    /**
+     * Deletes the key like {@link #delete(Comparable)}, but a missing key (or an empty tree) is not an error.
+     *
+     * @param x the key to be deleted
+     * @return DELETED, or NOT_FOUND if the key is not in the tree
+     * @throws TreeException if the tree algorithm fails while deleting the key
+     */
+    public Outcome tryDelete(E x) throws TreeException {
+        return deleteIfPresent(x) != null ? Outcome.DELETED : Outcome.NOT_FOUND;
+    }
+
+    /**
+     * Inserts all keys as one modification.
+     * Every key is inserted and balanced like {@link #main_insert(Comparable)},
+     * but the status is only updated once and the history gets one entry for the whole batch.
+     * The keys which are already in the tree are skipped.
+     *
+     * @param keys the keys to be inserted
+     * @return the amount of inserted keys. If it is 0, nothing is added to the history.
+     * @throws TreeException if a key could not be inserted. The keys before it stay inserted.
+     */
+    public int insertAll(Iterable<E> keys) throws TreeException {
+        ArrayList<E> inserted = new ArrayList<>();
+        inBatch = true;
+        try {
+            for (E key : keys) {
+                if (insertIfNew(key)) inserted.add(key);
+            }
+        } finally {
+            endBatch(TreeLog.Operation.INSERT, inserted);
+        }
+        return inserted.size();
+    }
+
+    /**
+     * Deletes all keys as one modification.
+     * Every key is deleted and balanced like {@link #delete(Comparable)},
+     * but the status is only updated once and the history gets one entry for the whole batch.
+     * The keys which are not in the tree are skipped.
+     *
+     * @param keys the keys to be deleted
+     * @return the amount of deleted keys. If it is 0, nothing is added to the history.
+     * @throws TreeException if a key could not be deleted. The keys before it stay deleted.
+     */
+    public int deleteAll(Iterable<E> keys) throws TreeException {
+        ArrayList<E> deleted = new ArrayList<>();
+        inBatch = true;
+        try {
+            for (E key : keys) {
+                E removed = deleteIfPresent(key);
+                if (removed != null) deleted.add(removed);
+            }
+        } finally {
+            endBatch(TreeLog.Operation.DELETE, deleted);
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Ends a batch: the modified keys are logged and the status, the snapshot and the history are updated once.
+     *
+     * @param operation the operation of the batch for the log
+     * @param modified the inserted or deleted keys, nothing is done if there are none
+     */
+    private void endBatch(TreeLog.Operation operation, List<E> modified) {
+        inBatch = false;
+        if (modified.isEmpty()) return;
+        logAll(operation, modified);
+        publish();
+        updateCurrentStatus();
+        acceptRecordInHistory();
     }
 
     /**
@@ -216,10 +774,11 @@ public abstract class TreeService<E extends Comparable<E>> {
      * @param parentTarget The parent node of the target node that needs to be deleted.
      * @param target The node to be deleted from the binary tree.
      * @param positionOfTarget Specifies whether the target node is the left or right child of the parent node.
+     * The target is unlinked from the tree or, if it has two children, it takes the key of another node,
+     * which is unlinked instead. No node without a key is left in the tree.
      * @throws TreeException If a problem occurs during node deletion.
-     * @return a nullNode that has been used for the operation. Otherwise, it should return null
      */
-    protected abstract TreeNode<E> deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException;
+    protected abstract void deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException;
 
     protected enum CHILD {rightChildOfParent, leftChildOfParent}
 
@@ -233,38 +792,373 @@ public abstract class TreeService<E extends Comparable<E>> {
     public E lookup(E x) {
         TreeNode<E> k = root;
         while(k != null) {
-            if(x.compareTo(k.getData()) < 0) { // x is smaller than k
+            int cmp = compare(x, k.getData());
+            if(cmp < 0) { // x is smaller than k
                 k = k.getLeft();
-            } else if(x.compareTo(k.getData()) > 0){ // x is bigger than k
+            } else if(cmp > 0){ // x is bigger than k
                 k = k.getRight();
-            } else if(x.compareTo(k.getData()) == 0) {
+            } else {
                 return k.getData();
             }
         }
         return null;
     }
 
+    /**
+     * Returns the k-th smallest key, e.g. {@code select(size / 2)} for the median.
+     * It walks down one path by the subtree sizes of the nodes, see {@link TreeNode#size()}.
+     *
+     * @param k the index of the key in ascending order, starting from 0
+     * @return the k-th smallest key
+     * @throws IndexOutOfBoundsException if k is negative or not smaller than the amount of keys
+     */
+    public E select(int k) {
+        return OrderStatistics.select(root, k);
+    }
+
+    /**
+     * @param e the key, it does not need to be in the tree
+     * @return the amount of keys smaller than e, i.e. the index of e if it is in the tree
+     */
+    public int rank(E e) {
+        return OrderStatistics.rank(root, e, false, comparator);
+    }
+
+    /**
+     * @param lo the lowest key of the range (inclusive)
+     * @param hi the highest key of the range (inclusive)
+     * @return the amount of keys between lo and hi, 0 if lo is bigger than hi
+     */
+    public int countInRange(E lo, E hi) {
+        return OrderStatistics.countInRange(root, lo, hi, comparator);
+    }
+
+    /**
+     * @return the smallest key of the tree
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public E min( ) {
+        if (root == null) throw new NoSuchElementException("The tree is empty");
+        TreeNode<E> n = root;
+        while (n.getLeft() != null) n = n.getLeft();
+        return n.getData();
+    }
+
+    /**
+     * @return the biggest key of the tree
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public E max( ) {
+        if (root == null) throw new NoSuchElementException("The tree is empty");
+        TreeNode<E> n = root;
+        while (n.getRight() != null) n = n.getRight();
+        return n.getData();
+    }
+
+    /**
+     * @return the biggest key which is smaller than or equal to e, or null if there is none
+     */
+    public E floor(E e) {
+        return dataOf(lowerNode(e, true));
+    }
+
+    /**
+     * @return the smallest key which is bigger than or equal to e, or null if there is none
+     */
+    public E ceiling(E e) {
+        return dataOf(higherNode(e, true));
+    }
+
+    /**
+     * @return the smallest key which is bigger than e, or null if there is none
+     */
+    public E higher(E e) {
+        return dataOf(higherNode(e, false));
+    }
+
+    /**
+     * @return the biggest key which is smaller than e, or null if there is none
+     */
+    public E lower(E e) {
+        return dataOf(lowerNode(e, false));
+    }
+
+    /**
+     * @return the keys of the tree in ascending order, see {@link #range(Comparable, Comparable)}
+     */
+    @Override
+    public Iterator<E> iterator( ) {
+        return new RangeIterator(null, null);
+    }
+
+    /**
+     * Iterates over the keys between lo and hi (both inclusive) in ascending order.
+     * <p>The iterator is lazy: it descends to lo in O(log n) and keeps only the path of the not yet visited
+     * ancestors, one stack for the whole iteration, nothing is allocated per key. Each step costs O(1) amortized.
+     * The subtrees outside the range are never visited.</p>
+     * <p>The tree must not be modified during the iteration,
+     * a consistent iteration while the tree is modified is possible on a {@link #snapshot()}.</p>
+     *
+     * @param lo the lowest key (inclusive)
+     * @param hi the highest key (inclusive)
+     * @return the iterator over the keys of the range
+     */
+    public Iterator<E> range(E lo, E hi) {
+        return new RangeIterator(lo, hi);
+    }
+
+    /**
+     * Splits the keys by their index in ascending order, see {@link #select(int)}.
+     * A split halves the range of indices in O(1), so the parts are always balanced, also for a degenerated BST.
+     * A part descends to its first key only when its traversal starts.
+     * <p>The tree must not be modified while the spliterator is used.</p>
+     *
+     * @return a spliterator over the keys, which is SORTED, DISTINCT, ORDERED, SIZED, SUBSIZED and NONNULL
+     */
+    @Override
+    public Spliterator<E> spliterator( ) {
+        // counts the invalid subtree sizes now, so that the parts of a parallel stream only read them
+        return new TreeSpliterator(0, root == null ? 0 : root.size());
+    }
+
+    /**
+     * @return a sequential stream of the keys in ascending order, {@code stream().parallel()} splits the tree
+     * @see #spliterator()
+     */
+    public Stream<E> stream( ) {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * @param inclusive true if the node of e itself can be returned
+     * @return the node of the smallest key bigger than e (or equal to e), or null if there is none
+     */
+    private TreeNode<E> higherNode(E e, boolean inclusive) {
+        TreeNode<E> candidate = null;
+        TreeNode<E> n = root;
+        while (n != null) {
+            int cmp = compare(e, n.getData());
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                if (cmp == 0) return n;
+                candidate = n;
+                n = n.getLeft();
+            } else {
+                n = n.getRight();
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * @param inclusive true if the node of e itself can be returned
+     * @return the node of the biggest key smaller than e (or equal to e), or null if there is none
+     */
+    private TreeNode<E> lowerNode(E e, boolean inclusive) {
+        TreeNode<E> candidate = null;
+        TreeNode<E> n = root;
+        while (n != null) {
+            int cmp = compare(e, n.getData());
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                if (cmp == 0) return n;
+                candidate = n;
+                n = n.getRight();
+            } else {
+                n = n.getLeft();
+            }
+        }
+        return candidate;
+    }
+
+    private static <E extends Comparable<E>> E dataOf(TreeNode<E> n) {
+        return n == null ? null : n.getData();
+    }
+
+    /**
+     * An in-order walk between lo and hi. The stack holds the nodes whose key and right subtree are not visited yet,
+     * the top is the next key.
+     */
+    private final class RangeIterator implements Iterator<E> {
+
+        private final ArrayDeque<TreeNode<E>> stack = new ArrayDeque<>();
+
+        // null for no bound
+        private final E hi;
+
+        private RangeIterator(E lo, E hi) {
+            this.hi = hi;
+            if (lo != null && hi != null && compare(lo, hi) > 0) return;
+            // push the path to lo, without the nodes smaller than lo
+            TreeNode<E> n = root;
+            while (n != null) {
+                if (lo != null && compare(n.getData(), lo) < 0) {
+                    n = n.getRight();
+                } else {
+                    stack.push(n);
+                    n = n.getLeft();
+                }
+            }
+            dropAboveHi();
+        }
+
+        private void dropAboveHi( ) {
+            if (hi != null && !stack.isEmpty() && compare(stack.peek().getData(), hi) > 0) stack.clear();
+        }
+
+        @Override
+        public boolean hasNext( ) {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public E next( ) {
+            if (stack.isEmpty()) throw new NoSuchElementException();
+            TreeNode<E> node = stack.pop();
+            for (TreeNode<E> n = node.getRight(); n != null; n = n.getLeft()) stack.push(n);
+            dropAboveHi();
+            return node.getData();
+        }
+    }
+
+    /**
+     * The keys with the indices from (inclusive) until to (exclusive).
+     * The traversal is the walk of {@link RangeIterator}, it starts at the node of index from.
+     */
+    private final class TreeSpliterator implements Spliterator<E> {
+
+        private int from;
+
+        private final int to;
+
+        // null until the traversal starts, afterward the part cannot be split anymore
+        private ArrayDeque<TreeNode<E>> stack;
+
+        private TreeSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Pushes the path to the node of index from, without the nodes of smaller keys.
+         */
+        private void start( ) {
+            stack = new ArrayDeque<>();
+            int k = from;
+            TreeNode<E> n = root;
+            while (n != null) {
+                int leftSize = n.getLeft() == null ? 0 : n.getLeft().size();
+                if (k < leftSize) {
+                    stack.push(n);
+                    n = n.getLeft();
+                } else if (k == leftSize) {
+                    stack.push(n);
+                    return;
+                } else {
+                    k -= leftSize + 1;
+                    n = n.getRight();
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (from >= to) return false;
+            if (stack == null) start();
+            from++;
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (from >= to) return;
+            if (stack == null) start();
+            for (; from < to; from++) action.accept(next());
+        }
+
+        private E next( ) {
+            TreeNode<E> node = stack.pop();
+            for (TreeNode<E> n = node.getRight(); n != null; n = n.getLeft()) stack.push(n);
+            return node.getData();
+        }
+
+        @Override
+        public Spliterator<E> trySplit( ) {
+            if (stack != null || to - from < 2) return null;
+            int mid = (from + to) >>> 1;
+            TreeSpliterator prefix = new TreeSpliterator(from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize( ) {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics( ) {
+            return SORTED | DISTINCT | ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        /**
+         * @return the order of the tree, null if the keys are sorted by their natural order
+         */
+        @Override
+        public Comparator<? super E> getComparator( ) {
+            return comparator;
+        }
+    }
+
     /**
      * Insert the node into the tree without any self-balancing methods.
      * After the execution, the newNode will have a parent if root != null. <p>
      * inspired from: AlgoDS Lecture HS Fulda 24/25
      * @param newNode will be added to the tree
+     * @throws TreeException if the key is already in the tree
      */
     protected void insertNode(TreeNode<E> newNode) throws TreeException {
-        addRecord("\n- Insert " + newNode.getData() + " to the tree\n");
-        if(root == null)
-            root = newNode;
-        else {
-            TreeNode<E> parent = getParentOf(newNode.getData());
+        if (!insertNodeIfAbsent(newNode))
+            throw TreeException.withoutStackTrace("The value " + newNode.getData() + " is already in the tree.");
+    }
 
-            if(newNode.getData().compareTo(parent.getData()) < 0) {
-                parent.setLeft(newNode);
-            } else if(newNode.getData().compareTo(parent.getData()) > 0) {
-                parent.setRight(newNode);
-            } else throw new TreeException("The value is already in the tree. No Parent will be returned");
+    /**
+     * Insert the node into the tree without any self-balancing methods, if its key is not in the tree yet.
+     * The parent is found and the side is chosen in the same descent, comparing once per node.
+     * After the execution, the newNode will have a parent if root != null.
+     * @param newNode will be added to the tree
+     * @return false if the key is already in the tree, then the tree is not changed
+     */
+    protected boolean insertNodeIfAbsent(TreeNode<E> newNode) {
+        E x = newNode.getData();
+        TreeNode<E> parent = null;
+        int cmp = 0;
+        for (TreeNode<E> n = root; n != null; n = cmp < 0 ? n.getLeft() : n.getRight()) {
+            parent = n;
+            cmp = compare(x, n.getData());
+            if (cmp == 0) return false; // the value is the same, do not add the value
         }
 
-        nodes.add(newNode.getData());
+        if (isRecording()) addRecord("TreeService.insertNode", "\n- Insert " + x + " to the tree\n");
+        if(parent == null)
+            root = newNode;
+        else if(cmp < 0)
+            parent.setLeft(newNode);
+        else
+            parent.setRight(newNode);
+
+        afterInsert(x);
+        return true;
+    }
+
+    /**
+     * The bookkeeping after a key has been attached to the tree: the keys, the status and the size.
+     * The insert is logged by the caller after the tree has been balanced, see {@link #main_insert(Comparable)}.
+     * It is called by {@link #insertNodeIfAbsent(TreeNode)}, or by a tree which attaches its nodes in its own way.
+     *
+     * @param data the inserted key
+     */
+    protected final void afterInsert(E data) {
+        nodes.add(data);
         updateCurrentStatus();
         size++;
     }
@@ -283,12 +1177,13 @@ public abstract class TreeService<E extends Comparable<E>> {
         TreeNode<E> n = root;
         while(n != null) {
             parent = n;
-            if (x.compareTo(n.getData()) < 0) { // x is smaller than n
+            int cmp = compare(x, n.getData());
+            if (cmp < 0) { // x is smaller than n
                 n = n.getLeft();
-            } else if (x.compareTo(n.getData()) > 0) { // x is bigger than n
+            } else if (cmp > 0) { // x is bigger than n
                 n = n.getRight();
             } else // the value is the same, do not add the value
-                throw new TreeException("The value is already in the tree. No Parent will be returned");
+                throw TreeException.withoutStackTrace("The value is already in the tree. No Parent will be returned");
         }
         return parent;
     }
@@ -303,35 +1198,97 @@ public abstract class TreeService<E extends Comparable<E>> {
      * @throws TreeException if the tree is empty or the value to delete is not found.
      */
     public void delete(E x) throws TreeException {
+        if(root == null)
+            throw TreeException.withoutStackTrace("The tree is empty");
+        if(deleteIfPresent(x) == null)
+            throw TreeException.withoutStackTrace("The value " + x + " could not be found in the tree.");
+    }
+
+    /**
+     * Searches the target and deletes it in the same descent, see {@link #delete(Comparable)}.
+     *
+     * @param x the value to be deleted from the binary tree.
+     * @return the deleted key of the tree, or null if the value is not in the tree, then nothing is changed or recorded
+     * @throws TreeException if the tree algorithm fails while deleting the target
+     */
+    private E deleteIfPresent(E x) throws TreeException {
+        E removed = removeKey(x);
+        if (removed == null) return null;
+
+        nodes.remove(removed);
+        updateCurrentStatus();
+        this.acceptRecordInHistory();
+
+        size--;
+        if (!inBatch) {
+            log(TreeLog.Operation.DELETE, removed);
+            publish();
+        }
+        return removed;
+    }
+
+    /**
+     * Searches the target and removes it from the tree in the same descent, without the bookkeeping of
+     * {@link #delete(Comparable)} (the keys, the status, the history, the size and the log).
+     * By default, the target is removed by {@link #deleteTarget(TreeNode, TreeNode, CHILD)} after the descent.
+     * A tree can override it to delete in its own way, e.g. while descending.
+     *
+     * @param x the value to be deleted from the binary tree.
+     * @return the key of the tree which has been removed. It equals x by the comparator, but not always by
+     * {@link Object#equals(Object)}, e.g. "Alpha" for "ALPHA" with {@link String#CASE_INSENSITIVE_ORDER}.
+     * Null if the value is not in the tree, then nothing is recorded and the keys of the tree stay the same.
+     * @throws TreeException if the tree algorithm fails while deleting the target
+     */
+    protected E removeKey(E x) throws TreeException {
         TreeNode<E> target = root;
         TreeNode<E> parentTarget = null;
-        if(target == null)
-            throw new TreeException("The tree is empty");
-
         CHILD positionOfTarget = null;
         while(target != null) {
-            if(x.compareTo(target.getData()) < 0) {
+            int cmp = compare(x, target.getData());
+            if(cmp < 0) {
                 parentTarget = target;
                 target = parentTarget.getLeft();
                 positionOfTarget = CHILD.leftChildOfParent;
-            } else if(x.compareTo(target.getData()) > 0) {
+            } else if(cmp > 0) {
                 parentTarget = target;
                 target = parentTarget.getRight();
                 positionOfTarget = CHILD.rightChildOfParent;
-            } else if(x.compareTo(target.getData()) == 0) {
-                addRecord("- Delete " + x + " from the tree\n");
-
-                removeNullNode(deleteTarget(parentTarget, target, positionOfTarget));
+            } else {
+                if (isRecording()) addRecord("TreeService.delete", "- Delete " + x + " from the tree\n");
 
-                nodes.remove(x);
-                updateCurrentStatus();
-                this.acceptRecordInHistory();
-
-                size--;
-                return;
+                E removed = target.getData(); // deleteTarget may replace the key of the target
+                deleteTarget(parentTarget, target, positionOfTarget);
+                return removed;
             }
         }
-        throw new TreeException("The value " + x + " could not be found in the tree.");
+        return null;
+    }
+
+    /**
+     * Writes the modification into the log, if there is one.
+     * No checkpoint is written here, so that a single modification never costs O(n),
+     * see {@link #checkpointIfDue()}.
+     */
+    private void log(TreeLog.Operation operation, E key) {
+        if (log != null) log.append(operation, key);
+    }
+
+    /**
+     * Writes into the log that the keys of the tree have been replaced: a CLEAR and an INSERT for every key.
+     */
+    private void logReplacement(List<E> keys) {
+        if (log != null) log.append(TreeLog.Operation.CLEAR, null);
+        logAll(TreeLog.Operation.INSERT, keys);
+    }
+
+    /**
+     * Writes the modifications of all keys into the log, and writes a checkpoint afterward when it is due.
+     * The batches and bulk loads already cost O(m) for m keys, so they take the checkpoint of the single modifications too.
+     */
+    private void logAll(TreeLog.Operation operation, List<E> keys) {
+        if (log == null) return;
+        for (E key : keys) log.append(operation, key);
+        checkpointIfDue();
     }
 
     /**
@@ -354,18 +1311,19 @@ public abstract class TreeService<E extends Comparable<E>> {
      */
     protected TreeNode<E> deleteTargetWithOneChildOrNone(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) {
         TreeNode<E> replacement = target.getRight() == null ? target.getLeft() : target.getRight();
-        TreeNode<E> nullNode = new TreeNode<>(null, TreeNode.COLOR.BLACK);
-        replacement = replacement == null ? nullNode : replacement;
         if(parentTarget != null) {
             switch (positionOfTarget) {
                 case leftChildOfParent -> parentTarget.setLeft(replacement);
                 case rightChildOfParent -> parentTarget.setRight(replacement);
             }
         } else {
-            // If the target is root, then the replacement becomes the root
+            // If the target is root, then the replacement becomes the root.
+            // It is detached from the target first, so that the new root has no parent
+            if (target.getLeft() == replacement) target.setLeft(null);
+            else target.setRight(null);
             root = replacement;
         }
-        addRecord("> Case 1 one child: replace target " + target.getData() + " with the children " + replacement.getData() +"\n");
+        if (isRecording()) addRecord("TreeService.deleteTargetWithOneChildOrNone", "> Case 1 one child: replace target " + target.getData() + " with the children " + (replacement == null ? null : replacement.getData()) +"\n");
         return replacement;
     }
 
@@ -408,13 +1366,13 @@ public abstract class TreeService<E extends Comparable<E>> {
             // If the smallest node is directly the right child
             // Because there is no other child on the left side.
             parent.setRight(result.getRight());
-            addRecord("> Case 2 two children: Replace with the right target's children "+ result.getData() +". Because it does not have other children with smaller number anymore\n");
+            if (isRecording()) addRecord("TreeService.replaceWithTheSmallestOfRightChildren", "> Case 2 two children: Replace with the right target's children "+ result.getData() +". Because it does not have other children with smaller number anymore\n");
         } else {
             // If the smallest node is further down the left subtree
             // then take the right subtree of the result. if it does not exist then
             // the parent.left should be null
             parent.setLeft(result.getRight());
-            addRecord("> Case 2 two children: Replace the target " + target.getData() + " with the smallest value on " +
+            if (isRecording()) addRecord("TreeService.replaceWithTheSmallestOfRightChildren", "> Case 2 two children: Replace the target " + target.getData() + " with the smallest value on " +
                     "the left of the right target's children "+ result.getData() +"\n");
         }
 
@@ -433,32 +1391,7 @@ public abstract class TreeService<E extends Comparable<E>> {
      */
     public TreePrinter getTreePrinter() {
         if (root == null) throw new NullPointerException("The tree is empty");
-        ArrayList<TreeNode<E>> queueNodes = new ArrayList<>();
-        ArrayList<TreePrinter> queueNode = new ArrayList<>();
-        String color = root.getColor() == null ? "green" : root.getColor().toString();
-        TreePrinter treePrinterRoot = new TreePrinter(Integer.parseInt(root.getData().toString()), null, null, color);
-        TreePrinter iterNode = treePrinterRoot;
-
-        queueNodes.add(root);
-        while (!queueNodes.isEmpty()) {
-            TreeNode<E> current = queueNodes.removeFirst();
-            if (current.getLeft() != null && current.getLeft().getData() != null) {
-                int leftValue = Integer.parseInt(current.getLeft().getData().toString());
-                String colorLeft = current.getLeft().getColor() == null ? "green" : current.getLeft().getColor().toString();
-                iterNode.setLeft(new TreePrinter(leftValue, null, null, colorLeft));
-                queueNode.add(iterNode.getLeft());
-                queueNodes.add(current.getLeft());
-            }
-            if (current.getRight() != null && current.getRight().getData() != null) {
-                int rightValue = Integer.parseInt(current.getRight().getData().toString());
-                String colorRight = current.getRight().getColor() == null ? "green" : current.getRight().getColor().toString();
-                iterNode.setRight(new TreePrinter(rightValue, null, null, colorRight));
-                queueNode.add(iterNode.getRight());
-                queueNodes.add(current.getRight());
-            }
-            if (!queueNode.isEmpty()) iterNode = queueNode.removeFirst(); // remove the first element, so that the next element is the next node
-        }
-        return treePrinterRoot;
+        return TreeSnapshot.of(root, null).toTreePrinter();
     }
 
     /**
@@ -522,7 +1455,7 @@ public abstract class TreeService<E extends Comparable<E>> {
      */
     private void updateHeightAfterRotation(TreeNode<E> z, TreeNode<E> y) {
         z.setHeight(Math.max(height(z.getLeft()),
-                height(z.getRight()) + 1));
+                height(z.getRight())) + 1);
         y.setHeight(Math.max(height(y.getLeft()),
                 height(y.getRight())) + 1);
     }
@@ -540,39 +1473,18 @@ public abstract class TreeService<E extends Comparable<E>> {
     }
 
     /**
-     * Removes a null node from its parent node in a binary tree.
+     * Records a snapshot of the tree structure and appends it to the provided record.
+     * The snapshot is rendered as SVG image wrapped in a <div> element with a downloadable link
+     * of the SVG file only when the record is rendered, see {@link TreeSnapshot#render()}.
+     * <p>The tree is only recorded if the recording mode is {@link RecordingMode#FULL}.</p>
      *
-     * @param nullNode the node to be removed, which must have a non-null parent in order
-     *                 to perform the operation. If the specified node is null or its
-     *                 parent is null, the method does nothing.
-     */
-    private void removeNullNode(TreeNode<E> nullNode){
-        if(nullNode != null && nullNode.getParent() != null && nullNode.getData() == null){
-            TreeNode<E> nullNodeParent = nullNode.getParent();
-            if(nullNodeParent.getLeft() == nullNode) nullNodeParent.setLeft(null);
-            else nullNodeParent.setRight(null);
-        }
-    }
-
-    /**
-     * Records the tree structure as an SVG image and appends it to the provided StringBuilder.
-     * The SVG content is wrapped in a <div> element. If the SVG content is successfully generated,
-     * a downloadable link for the SVG file is also appended to the StringBuilder.
-     * 
      * @param <T> The type of the tree node data, which must be comparable.
-     * @param parent The root node of the tree to be recorded.
-     * @param record The StringBuilder to which the SVG content and download link will be appended.
-     */
-    protected <T extends Comparable<T>> void recordTreeAsImage(TreeNode<T> parent, StringBuilder record) {
-        String svgContent = this.getTreePrinter().getTreeAsImage();
-        record.append("<div>").append(svgContent).append("</div>\n");
-        if (svgContent != null) {
-            String downloadLink = TreePrinter.generateDownloadableSVGLink(svgContent, "tree_" +
-                    (parent != null ? parent.getData() : "null") + ".svg");
-            record.append(downloadLink).append("\n\n");
-        } else {
-            record.append("Failed to generate tree as SVG.\n\n");
-        }
+     * @param parent The node of the modification step, used for the name of the SVG file.
+     * @param record The record to which the snapshot will be appended.
+     */
+    protected <T extends Comparable<T>> void recordTreeAsImage(TreeNode<T> parent, TreeRecord record) {
+        if (recordingMode != RecordingMode.FULL) return;
+        record.append(TreeSnapshot.of(root, parent != null ? parent.getData() : "null"));
     }
 
 }
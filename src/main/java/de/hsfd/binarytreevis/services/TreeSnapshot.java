@@ -0,0 +1,124 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.TreePrinter;
+
+import java.util.ArrayDeque;
+
+/**
+ * A snapshot of a tree at one step of a modification.
+ * It holds the persistent version of the tree (see {@link TreeNode#freeze()}),
+ * so that consecutive snapshots share all the unchanged subtrees.
+ * The tree is rendered with Graphviz only when the snapshot is displayed,
+ * see {@link #render()}.
+ */
+public final class TreeSnapshot {
+
+    private final PersistentNode<?> root;
+
+    private final String fileName;
+
+    private String rendered;
+
+    TreeSnapshot(PersistentNode<?> root, String fileName) {
+        this.root = root;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Captures the current structure of the tree.
+     * Null nodes (nodes without data) are not part of the snapshot.
+     *
+     * @param root the root of the tree, can be null
+     * @param name the name of the snapshot, used for the name of the SVG file
+     * @return the snapshot of the tree
+     */
+    public static <E extends Comparable<E>> TreeSnapshot of(TreeNode<E> root, Object name) {
+        return new TreeSnapshot(root == null ? null : root.freeze(), "tree_" + name + ".svg");
+    }
+
+    PersistentNode<?> root( ) {
+        return root;
+    }
+
+    String fileName( ) {
+        return fileName;
+    }
+
+    /**
+     * @return the amount of nodes in the snapshot, without the null nodes
+     */
+    public int size( ) {
+        int n = 0;
+        ArrayDeque<PersistentNode<?>> stack = new ArrayDeque<>();
+        if (hasData(root)) stack.push(root);
+        while (!stack.isEmpty()) {
+            PersistentNode<?> current = stack.pop();
+            n++;
+            if (hasData(current.getLeft())) stack.push(current.getLeft());
+            if (hasData(current.getRight())) stack.push(current.getRight());
+        }
+        return n;
+    }
+
+    /**
+     * Rebuilds the tree as TreePrinter, so that it can be printed or rendered.
+     *
+     * @return the root of the TreePrinter representation
+     * @throws NullPointerException if the snapshot is empty
+     */
+    public TreePrinter toTreePrinter( ) {
+        if (!hasData(root)) throw new NullPointerException("The tree is empty");
+        TreePrinter printerRoot = toTreePrinter(root);
+
+        // walk both trees side by side, so that degenerated trees do not overflow the stack
+        ArrayDeque<PersistentNode<?>> nodes = new ArrayDeque<>();
+        ArrayDeque<TreePrinter> printers = new ArrayDeque<>();
+        nodes.push(root);
+        printers.push(printerRoot);
+        while (!nodes.isEmpty()) {
+            PersistentNode<?> node = nodes.pop();
+            TreePrinter printer = printers.pop();
+            if (hasData(node.getLeft())) {
+                printer.setLeft(toTreePrinter(node.getLeft()));
+                nodes.push(node.getLeft());
+                printers.push(printer.getLeft());
+            }
+            if (hasData(node.getRight())) {
+                printer.setRight(toTreePrinter(node.getRight()));
+                nodes.push(node.getRight());
+                printers.push(printer.getRight());
+            }
+        }
+        return printerRoot;
+    }
+
+    private static TreePrinter toTreePrinter(PersistentNode<?> node) {
+        String color = node.getColor() == null ? "green" : node.getColor().toString();
+        return new TreePrinter(String.valueOf(node.getData()), null, null, color);
+    }
+
+    private static boolean hasData(PersistentNode<?> node) {
+        return node != null && node.getData() != null;
+    }
+
+    /**
+     * Renders the snapshot as SVG wrapped in a div element followed by a downloadable link of the SVG.
+     * The result is cached, so that the snapshot is only rendered once.
+     *
+     * @return the HTML content of the snapshot
+     */
+    public String render( ) {
+        if (rendered == null) {
+            String svgContent = !hasData(root) ? null : toTreePrinter().getTreeAsImage();
+            StringBuilder html = new StringBuilder();
+            html.append("<div>").append(svgContent).append("</div>\n");
+            if (svgContent != null) {
+                html.append(TreePrinter.generateDownloadableSVGLink(svgContent, fileName)).append("\n\n");
+            } else {
+                html.append("Failed to generate tree as SVG.\n\n");
+            }
+            rendered = html.toString();
+        }
+        return rendered;
+    }
+}
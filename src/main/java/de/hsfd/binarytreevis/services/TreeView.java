@@ -0,0 +1,131 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.TreePrinter;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only version of a tree, returned by {@link TreeService#snapshot()}.
+ * <p>It consists of immutable {@link PersistentNode}s only, so it can be searched, walked and rendered
+ * by any thread without a lock, while the tree itself is modified further.
+ * The order statistics use the sizes of the persistent nodes, so they do not write anything either.</p>
+ *
+ * @param <E> the type of the keys
+ */
+public final class TreeView<E extends Comparable<E>> implements Iterable<E> {
+
+    private final PersistentNode<E> root;
+
+    private final int size;
+
+    private final Comparator<? super E> comparator;
+
+    TreeView(PersistentNode<E> root, int size, Comparator<? super E> comparator) {
+        this.root = root;
+        this.size = size;
+        this.comparator = comparator;
+    }
+
+    /**
+     * @return the root of the version, or null if the tree was empty
+     */
+    public PersistentNode<E> getRoot( ) {
+        return root;
+    }
+
+    public int size( ) {
+        return size;
+    }
+
+    public boolean isEmpty( ) {
+        return size == 0;
+    }
+
+    public boolean search(E key) {
+        return lookup(key) != null;
+    }
+
+    /**
+     * @param key the key to be searched
+     * @return the key of the version which is equal to key, or null if there is none
+     */
+    public E lookup(E key) {
+        PersistentNode<E> current = root;
+        while (hasData(current)) {
+            int cmp = TreeService.compare(comparator, key, current.getData());
+            if (cmp < 0) current = current.getLeft();
+            else if (cmp > 0) current = current.getRight();
+            else return current.getData();
+        }
+        return null;
+    }
+
+    /**
+     * @see TreeService#select(int)
+     */
+    public E select(int k) {
+        return OrderStatistics.select(root, k);
+    }
+
+    /**
+     * @see TreeService#rank(Comparable)
+     */
+    public int rank(E key) {
+        return OrderStatistics.rank(root, key, false, comparator);
+    }
+
+    /**
+     * @see TreeService#countInRange(Comparable, Comparable)
+     */
+    public int countInRange(E lo, E hi) {
+        return OrderStatistics.countInRange(root, lo, hi, comparator);
+    }
+
+    /**
+     * @return the keys in ascending order
+     */
+    @Override
+    public Iterator<E> iterator( ) {
+        return new Iterator<>() {
+            private final ArrayDeque<PersistentNode<E>> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(PersistentNode<E> node) {
+                for (; hasData(node); node = node.getLeft()) stack.push(node);
+            }
+
+            @Override
+            public boolean hasNext( ) {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public E next( ) {
+                if (stack.isEmpty()) throw new NoSuchElementException();
+                PersistentNode<E> node = stack.pop();
+                pushLeft(node.getRight());
+                return node.getData();
+            }
+        };
+    }
+
+    /**
+     * Rebuilds the version as TreePrinter, like {@link TreeService#getTreePrinter()}.
+     *
+     * @return the root of the TreePrinter representation
+     * @throws NullPointerException if the version is empty
+     */
+    public TreePrinter getTreePrinter( ) {
+        return new TreeSnapshot(root, null).toTreePrinter();
+    }
+
+    private static boolean hasData(PersistentNode<?> node) {
+        return node != null && node.getData() != null;
+    }
+}
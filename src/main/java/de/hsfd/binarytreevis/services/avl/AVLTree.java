@@ -3,8 +3,11 @@ package de.hsfd.binarytreevis.services.avl;
 import de.hsfd.binarytreevis.services.Author;
 import de.hsfd.binarytreevis.services.TreeException;
 import de.hsfd.binarytreevis.services.TreeNode;
+import de.hsfd.binarytreevis.services.TreeRecord;
 import de.hsfd.binarytreevis.services.TreeService;
 
+import java.util.Comparator;
+
 @Author(name = "Agha Muhammad Aslam", date = "31 Dec 2024")
 public class AVLTree<E extends Comparable<E>> extends TreeService<E> {
     public AVLTree() {
@@ -15,35 +18,45 @@ public class AVLTree<E extends Comparable<E>> extends TreeService<E> {
         super(treeService);
     }
 
+    /**
+     * @param comparator the order of the keys, or null for their natural order
+     */
+    public AVLTree(Comparator<? super E> comparator) {
+        super(comparator);
+    }
+
     @Override
-    protected TreeNode<E> deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException {
+    protected void deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException {
         // target found
         if(parentTarget == null && target.isLeaf()) {
             // target is the root and only one
-            addRecord("> Case 0 the element is the root and the only one. Set the root into null\n");
+            addRecord("AVLTree.deleteTarget", "> Case 0 the element is the root and the only one. Set the root into null\n");
             this.setRoot(null);
         } else {
-            TreeNode<E> possibleNullNode = null;
             if(target.getRight() != null && target.getLeft() != null) {
                 // Case 2 if the target has two children. This case is from the Lecture AlgoDS 24/25 HS Fulda
                 // Then take the inorder approach to find the smallest children of the right target's children
                 parentTarget = replaceWithTheSmallestOfRightChildren(target);
             } else {
-                 possibleNullNode = deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
+                deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
             }
 
             balanceTheTree(parentTarget);
-            return possibleNullNode;
         }
-        return null;
     }
 
 
     @Override
     public void insert(E x) throws TreeException {
+        if (!insertIfNew(x)) throw TreeException.withoutStackTrace("The value " + x + " is already in the tree.");
+    }
+
+    @Override
+    protected boolean insertIfNew(E x) throws TreeException {
         TreeNode<E> newNode = new TreeNode<>(x);
-        insertNode(newNode);
+        if (!insertNodeIfAbsent(newNode)) return false;
         balanceTheTree(newNode.getParent());
+        return true;
     }
 
     /**
@@ -67,41 +80,41 @@ public class AVLTree<E extends Comparable<E>> extends TreeService<E> {
      * @throws TreeException if a violation of AVL tree properties persists after balancing
      */
     private void balanceTheTree(TreeNode<E> parent) throws TreeException {
-        StringBuilder record = new StringBuilder();
+        TreeRecord record = new TreeRecord();
         while(parent != null) {
             updateHeight(parent);
             int balance = getBalanceFactor(parent);
 
             if(balance > 1 || balance < -1) {
                 if (balance > 0) {
-                    record.append("> Left heavy from the parent ").append(parent.getData()).append(", before rotation:\n");
+                    if (isRecording()) record.append("> Left heavy from the parent ").append(parent.getData()).append(", before rotation:\n");
                     recordTreeAsImage(parent, record);
 
                     if(getBalanceFactor(parent.getLeft()) < 0 ){
                         leftRotate(parent.getLeft());// Left Right Case
 
-                        record.append("-> Left Rotation, after rotation:\n");
+                        if (isRecording()) record.append("-> Left Rotation, after rotation:\n");
                         recordTreeAsImage(parent, record);
                     }
 
                     rightRotate(parent);
 
-                    record.append("-> Right Rotation, after rotation:\n");
+                    if (isRecording()) record.append("-> Right Rotation, after rotation:\n");
                     recordTreeAsImage(parent, record);
                 } else { // (balance < 0) right heavy from the parent
-                    record.append("> Right heavy from the parent ").append(parent.getData()).append(", before rotation:\n");
+                    if (isRecording()) record.append("> Right heavy from the parent ").append(parent.getData()).append(", before rotation:\n");
                     recordTreeAsImage(parent, record);
 
                     if ( getBalanceFactor(parent.getRight()) > 0 ){
                         rightRotate(parent.getRight());// Right Left Case
 
-                        record.append("-> Right Rotation, after rotation:\n");
+                        if (isRecording()) record.append("-> Right Rotation, after rotation:\n");
                         recordTreeAsImage(parent, record);
                     }
 
                     leftRotate(parent);
 
-                    record.append("-> Left Rotation, after rotation:\n");
+                    if (isRecording()) record.append("-> Left Rotation, after rotation:\n");
                     recordTreeAsImage(parent, record);
                 }
 
@@ -115,8 +128,10 @@ public class AVLTree<E extends Comparable<E>> extends TreeService<E> {
             }
             parent = parent.getParent();
         }
-        if(record.isEmpty()) record.append("> Nothing to rotate here\n");
-        addRecord(record.toString());
+        if (isRecording()) {
+            if(record.isEmpty()) record.append("> Nothing to rotate here\n");
+            addRecord("AVLTree.balanceTheTree", record);
+        }
     }
 
     /**
@@ -155,12 +170,12 @@ public class AVLTree<E extends Comparable<E>> extends TreeService<E> {
             if(parent.getHeight() > 1) {
                 int balance = getBalanceFactor(parent);
                 if (balance > 0) { //left heavy from the parent
-                    if (newNode.getData().compareTo(parent.getLeft().getData()) > 0) {
+                    if (compare(newNode.getData(), parent.getLeft().getData()) > 0) {
                         leftRotate(parent.getLeft());
                     }
                     rightRotate(parent);
                 } else if (balance < 0) { //right heavy from the parent
-                    if (newNode.getData().compareTo(parent.getRight().getData()) < 0) {
+                    if (compare(newNode.getData(), parent.getRight().getData()) < 0) {
                         rightRotate(parent.getRight());
                     }
                     leftRotate(parent);
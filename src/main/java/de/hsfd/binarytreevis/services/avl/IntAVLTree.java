@@ -0,0 +1,96 @@
+package de.hsfd.binarytreevis.services.avl;
+
+import de.hsfd.binarytreevis.services.IntTree;
+import de.hsfd.binarytreevis.services.NodeStore;
+
+/**
+ * An AVL tree of primitive int keys, see {@link IntTree}.
+ * The balancing is the same as the one of {@link AVLTree}, without the records for the history.
+ * The heights are stored in the tag byte of the nodes, an AVL tree of 2^31 keys is lower than 64 levels.
+ */
+public class IntAVLTree extends IntTree {
+
+    /**
+     * Identifies the AVL trees in a persistent {@link NodeStore}, it must not change.
+     */
+    public static final int KIND = 1;
+
+    private static final byte NIL_HEIGHT = 0;
+
+    public IntAVLTree() {
+        super(KIND, NIL_HEIGHT);
+    }
+
+    public IntAVLTree(int initialCapacity) {
+        super(KIND, NIL_HEIGHT, initialCapacity);
+    }
+
+    /**
+     * @param store an empty store for the nodes, e.g. an {@link de.hsfd.binarytreevis.services.OffHeapNodeStore},
+     *              or a {@link de.hsfd.binarytreevis.services.MappedNodeStore} to be reopened
+     */
+    public IntAVLTree(NodeStore store) {
+        super(KIND, NIL_HEIGHT, store);
+    }
+
+    @Override
+    protected void afterInsert(int z) {
+        balanceTheTree(parent(z));
+    }
+
+    @Override
+    protected void afterDelete(int y, int x, int xParent) {
+        balanceTheTree(xParent);
+    }
+
+    @Override
+    protected void initNode(int n) {
+        store.setTag(n, (byte) 1); // the height of a leaf
+    }
+
+    /**
+     * Same as {@link AVLTree}: walks up from the parent, updates the heights
+     * and rotates wherever the balance factor is bigger than 1 or smaller than -1.
+     *
+     * @param parent the node from which balancing starts
+     */
+    private void balanceTheTree(int parent) {
+        while (parent != NIL) {
+            updateHeight(parent);
+            int balance = getBalanceFactor(parent);
+
+            if (balance > 1) { // left heavy from the parent
+                if (getBalanceFactor(left(parent)) < 0) leftRotate(left(parent)); // Left Right Case
+                rightRotate(parent);
+            } else if (balance < -1) { // right heavy from the parent
+                if (getBalanceFactor(right(parent)) > 0) rightRotate(right(parent)); // Right Left Case
+                leftRotate(parent);
+            }
+            parent = parent(parent);
+        }
+    }
+
+    @Override
+    protected void leftRotate(int z) {
+        int y = right(z);
+        super.leftRotate(z);
+        updateHeight(z);
+        updateHeight(y);
+    }
+
+    @Override
+    protected void rightRotate(int z) {
+        int y = left(z);
+        super.rightRotate(z);
+        updateHeight(z);
+        updateHeight(y);
+    }
+
+    private void updateHeight(int n) {
+        store.setTag(n, (byte) (Math.max(store.tag(left(n)), store.tag(right(n))) + 1));
+    }
+
+    private int getBalanceFactor(int n) {
+        return store.tag(left(n)) - store.tag(right(n));
+    }
+}
@@ -5,6 +5,8 @@ import de.hsfd.binarytreevis.services.TreeException;
 import de.hsfd.binarytreevis.services.TreeNode;
 import de.hsfd.binarytreevis.services.TreeService;
 
+import java.util.Comparator;
+
 @Author(name = "Agha Muhammad Aslam", date = "31 Dec 2024")
 public class BSTree<E extends Comparable<E>> extends TreeService<E> {
 
@@ -16,17 +18,28 @@ public class BSTree<E extends Comparable<E>> extends TreeService<E> {
         super(treeService);
     }
 
+    /**
+     * @param comparator the order of the keys, or null for their natural order
+     */
+    public BSTree(Comparator<? super E> comparator) {
+        super(comparator);
+    }
+
     @Override
     public void insert(E x) throws TreeException {
-        TreeNode<E> newNode = new TreeNode<>(x);
-        insertNode(newNode);
+        if (!insertIfNew(x)) throw TreeException.withoutStackTrace("The value " + x + " is already in the tree.");
+    }
+
+    @Override
+    protected boolean insertIfNew(E x) {
+        return insertNodeIfAbsent(new TreeNode<>(x));
     }
 
     @Override
-    protected TreeNode<E> deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException {
+    protected void deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException {
         // target found
         if(parentTarget == null && target.isLeaf()) { // target is the root and only one
-            addRecord("> Case 0 the element is the root and the only one. Set the root into null\n");
+            addRecord("BSTree.deleteTarget", "> Case 0 the element is the root and the only one. Set the root into null\n");
             this.setRoot(null);
         } else {
             // Case 2 if the target has two children. This case is from the Lecture AlgoDS 24/25 HS Fulda
@@ -34,9 +47,8 @@ public class BSTree<E extends Comparable<E>> extends TreeService<E> {
             if(target.getRight() != null && target.getLeft() != null) {
                 replaceWithTheSmallestOfRightChildren(target);
             } else {
-                return deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
+                deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
             }
         }
-        return null;
     }
 }
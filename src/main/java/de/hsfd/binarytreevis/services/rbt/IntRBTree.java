@@ -0,0 +1,141 @@
+package de.hsfd.binarytreevis.services.rbt;
+
+import de.hsfd.binarytreevis.services.IntTree;
+import de.hsfd.binarytreevis.services.NodeStore;
+
+/**
+ * A red-black tree of primitive int keys, see {@link IntTree}.
+ * The fixups are the ones of {@link RBTree} (Introduction to Algorithms), without the records for the history.
+ * The colors are stored in the tag byte of the nodes.
+ * <p>Because the sentinel NIL is a real black node, the delete fixup also starts
+ * when the removed black node had no child.</p>
+ */
+public class IntRBTree extends IntTree {
+
+    /**
+     * Identifies the red-black trees in a persistent {@link NodeStore}, it must not change.
+     */
+    public static final int KIND = 2;
+
+    private static final byte RED = 0;
+    private static final byte BLACK = 1;
+
+    public IntRBTree() {
+        super(KIND, BLACK);
+    }
+
+    public IntRBTree(int initialCapacity) {
+        super(KIND, BLACK, initialCapacity);
+    }
+
+    /**
+     * @param store an empty store for the nodes, e.g. an {@link de.hsfd.binarytreevis.services.OffHeapNodeStore},
+     *              or a {@link de.hsfd.binarytreevis.services.MappedNodeStore} to be reopened
+     */
+    public IntRBTree(NodeStore store) {
+        super(KIND, BLACK, store);
+    }
+
+    @Override
+    protected void initNode(int n) {
+        setColor(n, RED);
+    }
+
+    private byte color(int n) {
+        return store.tag(n);
+    }
+
+    private void setColor(int n, byte color) {
+        store.setTag(n, color);
+    }
+
+    @Override
+    protected String colorOf(int n) {
+        return color(n) == RED ? "RED" : "BLACK";
+    }
+
+    /**
+     * Same as {@link RBTree}: bottom-up fix of the tree after the insert of the red node z.
+     * @param z the inserted node that has been connected to the tree
+     */
+    @Override
+    protected void afterInsert(int z) {
+        while (color(parent(z)) == RED) {
+            int parent = parent(z);
+            int grandParent = parent(parent);
+            boolean isGrandparentLeftChild = parent == left(grandParent);
+            int uncleY = isGrandparentLeftChild ? right(grandParent) : left(grandParent);
+
+            if (color(uncleY) == RED) {
+                // Case 1
+                setColor(parent, BLACK);
+                setColor(uncleY, BLACK);
+                setColor(grandParent, RED);
+                z = grandParent;
+            } else { // uncle is black
+                if (z == (isGrandparentLeftChild ? right(parent) : left(parent))) {
+                    // Case 2 (triangle)
+                    z = parent;
+                    if (isGrandparentLeftChild) leftRotate(z);
+                    else rightRotate(z);
+                    parent = parent(z);
+                }
+                // Case 3 (line)
+                setColor(parent, BLACK);
+                setColor(grandParent, RED);
+                if (isGrandparentLeftChild) rightRotate(grandParent);
+                else leftRotate(grandParent);
+            }
+        }
+        setColor(root, BLACK);
+    }
+
+    /**
+     * Same as {@link RBTree}: fix of the tree if the removed node was black.
+     * @param y the removed node
+     * @param x the node in place of the removed node, can be NIL
+     * @param xParent the parent of x
+     */
+    @Override
+    protected void afterDelete(int y, int x, int xParent) {
+        if (color(y) == RED) return;
+        setParent(x, xParent); // NIL has no fixed parent
+        while (x != root && color(x) == BLACK) {
+            int p = parent(x);
+            boolean isLeftChildrenOfParent = x == left(p);
+            int w = isLeftChildrenOfParent ? right(p) : left(p);
+
+            if (color(w) == RED) {
+                // case 1
+                setColor(w, BLACK);
+                setColor(p, RED);
+                if (isLeftChildrenOfParent) leftRotate(p);
+                else rightRotate(p);
+                w = isLeftChildrenOfParent ? right(p) : left(p);
+            }
+
+            if (color(left(w)) == BLACK && color(right(w)) == BLACK) {
+                // case 2
+                setColor(w, RED);
+                x = p;
+            } else {
+                if (color(isLeftChildrenOfParent ? right(w) : left(w)) == BLACK) {
+                    // case 3
+                    setColor(isLeftChildrenOfParent ? left(w) : right(w), BLACK);
+                    setColor(w, RED);
+                    if (isLeftChildrenOfParent) rightRotate(w);
+                    else leftRotate(w);
+                    w = isLeftChildrenOfParent ? right(p) : left(p);
+                }
+                // case 4
+                setColor(w, color(p));
+                setColor(p, BLACK);
+                setColor(isLeftChildrenOfParent ? right(w) : left(w), BLACK);
+                if (isLeftChildrenOfParent) leftRotate(p);
+                else rightRotate(p);
+                x = root;
+            }
+        }
+        setColor(x, BLACK);
+    }
+}
@@ -4,8 +4,10 @@ import de.hsfd.binarytreevis.services.Author;
 import de.hsfd.binarytreevis.services.TreeException;
 import de.hsfd.binarytreevis.services.TreeNode;
 import de.hsfd.binarytreevis.services.TreeNode.COLOR;
+import de.hsfd.binarytreevis.services.TreeRecord;
 import de.hsfd.binarytreevis.services.TreeService;
 
+import java.util.Comparator;
 import java.util.Objects;
 
 import static de.hsfd.binarytreevis.services.TreeNode.COLOR.BLACK;
@@ -20,56 +22,137 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
 
     public RBTree(TreeService<E> treeService) {
         super(treeService);
+        if (treeService instanceof RBTree<E> rbTree) this.balancing = rbTree.balancing;
+    }
+
+    /**
+     * @param comparator the order of the keys, or null for their natural order
+     */
+    public RBTree(Comparator<? super E> comparator) {
+        super(comparator);
+    }
+
+    /**
+     * Defines how the tree is balanced while inserting and deleting.
+     * <ul>
+     *     <li>BOTTOM_UP: the fixups of the book Introduction to Algorithms, which walk back up by the parent pointers
+     *     after the descent. Every case is recorded. This is the default.</li>
+     *     <li>TOP_DOWN: the color flips and rotations are done on the way down, so the tree is descended only once
+     *     and the parent pointers are never read. One summary is recorded per modification.</li>
+     * </ul>
+     * Both keep the red-black properties, so the mode can be changed at any time.
+     */
+    public enum Balancing {BOTTOM_UP, TOP_DOWN}
+
+    private Balancing balancing = Balancing.BOTTOM_UP;
+
+    /**
+     * The node above the root during a top-down modification, so that the root is rotated like any other node.
+     * The root is its right child only while the modification runs.
+     */
+    private final TreeNode<E> head = new TreeNode<>(null);
+
+    public Balancing getBalancing( ) {
+        return balancing;
+    }
+
+    public void setBalancing( Balancing balancing ) {
+        this.balancing = balancing;
+    }
+
+    /**
+     * All levels of the bulk loaded tree are full except the deepest one.
+     * So every path has the same amount of black nodes if only the nodes of the deepest level are red.
+     * The root stays black, even if it is the only level.
+     */
+    @Override
+    protected TreeNode<E> newBulkNode(E data, int depth, int deepest) {
+        return new TreeNode<>(data, depth == deepest && depth > 0 ? RED : BLACK);
     }
 
     @Override
     public void insert(E data) throws TreeException {
+        if (!insertIfNew(data)) throw TreeException.withoutStackTrace("The value " + data + " is already in the tree.");
+    }
+
+    @Override
+    protected boolean insertIfNew(E data) {
+        if (balancing == Balancing.TOP_DOWN) return topDownInsert(data);
         TreeNode<E> newNode = new TreeNode<>(data, RED);
-        insertNode(newNode);
+        if (!insertNodeIfAbsent(newNode)) return false;
         RBInsertFixup(newNode);
+        return true;
     }
 
     @Override
-    protected TreeNode<E> deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException {
+    protected E removeKey(E x) throws TreeException {
+        return balancing == Balancing.TOP_DOWN ? topDownDelete(x) : super.removeKey(x);
+    }
+
+    /**
+     * Deletes the target like the book Introduction to Algorithm, but without NIL nodes:
+     * a missing child is black, see {@link #colorOf(TreeNode)}.
+     * <p>The node y which leaves the tree is the target itself or, if the target has two children,
+     * the smallest node of its right subtree, whose key replaces the key of the target.
+     * If y is a black leaf, y itself takes the place of the NIL node x of the book during the fixup
+     * and is unlinked afterwards, so that nothing is allocated.</p>
+     */
+    @Override
+    protected void deleteTarget(TreeNode<E> parentTarget, TreeNode<E> target, CHILD positionOfTarget) throws TreeException {
         // target found
         if(parentTarget == null && target.isLeaf()) {
             // target is the root and only one
-            addRecord("> Case 0 the element is the root and the only one. Set the root into null\n");
+            addRecord("RBTree.deleteTarget", "> Case 0 the element is the root and the only one. Set the root into null\n");
             this.setRoot(null);
-        } else {
-            TreeNode<E> x, nullNode = new TreeNode<>(null, BLACK);
-            COLOR targetOriginalColor = target.getColor();
-            if(target.getRight() != null && target.getLeft() != null) {
-                // Case 2 if the target has two children. Based on Lecture AlgoDS 24/25 HS Fulda
-                // Then take the inorder approach to find the smallest children of the right target's children
-                parentTarget = replaceWithTheSmallestOfRightChildren(target);
-                
-                if (target == parentTarget) {
-                    // target.getRight() does not have other child.
-                    // y.p == z, based on Delete Method the book Introduction to Algorithm
-                    if(target.getRight() == null){
-                        target.setRight(nullNode);
-                        x = nullNode;
-                    } else x = target.getRight();
-                } else {
-                    // the smallest value, children or grandchildren of target.getRight() exist
-                    // y.p != z, based on Delete Method the book Introduction to Algorithm
-                    if(parentTarget.getRight() == null){
-                        parentTarget.setRight(nullNode);
-                        x = nullNode;
-                    } else x = parentTarget.getRight();
-                }
-            } else {
-                x = deleteTargetWithOneChildOrNone(parentTarget, target, positionOfTarget);
-                if(x.getData() == null) nullNode = x;
-            }
+            return;
+        }
 
-            if(targetOriginalColor == BLACK && x.getData() != null) {
-                this.newRBDeleteFixup(x);
-            }
-            return nullNode;
+        TreeNode<E> y = target;
+        if(target.getRight() != null && target.getLeft() != null) {
+            // Case 2 if the target has two children. Based on Lecture AlgoDS 24/25 HS Fulda
+            // Then take the inorder approach to find the smallest children of the right target's children
+            y = target.getRight();
+            while (y.getLeft() != null) y = y.getLeft();
+            if (isRecording()) addRecord("RBTree.deleteTarget", "> Case 2 two children: Replace the target " + target.getData()
+                    + " with the smallest value of the right target's children " + y.getData() + "\n");
         }
-        return null;
+
+        TreeNode<E> x = y.getLeft() != null ? y.getLeft() : y.getRight();
+        if (x != null) {
+            // y has only one child, which takes its place
+            if (isRecording()) addRecord("RBTree.deleteTarget", "> Case 1 one child: replace " + y.getData() + " with the children " + x.getData() + "\n");
+            replaceWithChild(y, x);
+            if (y.getColor() == BLACK) this.newRBDeleteFixup(x);
+        } else {
+            // y is a leaf, it is the x of the fixup until it is unlinked
+            if (y.getColor() == BLACK) this.newRBDeleteFixup(y);
+            TreeNode<E> parent = y.getParent();
+            if (parent.getLeft() == y) parent.setLeft(null);
+            else parent.setRight(null);
+        }
+        if (y != target) target.setData(y.getData());
+    }
+
+    /**
+     * Replaces y by its only child x.
+     */
+    private void replaceWithChild(TreeNode<E> y, TreeNode<E> x) {
+        TreeNode<E> parent = y.getParent();
+        // detach x first, so that it has no parent anymore
+        if (y.getLeft() == x) y.setLeft(null);
+        else y.setRight(null);
+        if (parent == null) this.setRoot(x);
+        else if (parent.getLeft() == y) parent.setLeft(x);
+        else parent.setRight(x);
+    }
+
+    /**
+     * The missing children are the black NIL leaves of the red-black tree.
+     *
+     * @return the color of the node, black if it is null
+     */
+    private static COLOR colorOf(TreeNode<?> n) {
+        return n == null ? BLACK : n.getColor();
     }
 
     /**
@@ -79,12 +162,12 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
      * @param z the inserted node that has been connected to the tree
      */
     private void RBInsertFixup(TreeNode<E> z) {
-        StringBuilder record = new StringBuilder();
+        TreeRecord record = new TreeRecord();
         recordTreeAsImage(z,record);
         while (z.getParent() != null &&
                 z.getParent().getParent() != null &&
                 z.getParent().getColor() == RED) {
-            record.append("> z is ").append(z.getData()).append(".\n");
+            if (isRecording()) record.append("> z is ").append(z.getData()).append(".\n");
             TreeNode<E> parent = z.getParent();
             TreeNode<E> grandParent = parent.getParent();
 
@@ -92,9 +175,9 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
             TreeNode<E> case1 = isGrandparentLeftChild ? grandParent.getRight() : grandParent.getLeft();
             TreeNode<E> case2 = isGrandparentLeftChild ? parent.getRight() : parent.getLeft();
 
-            TreeNode<E> uncleY = case1 == null ? new TreeNode<>(null, BLACK) : case1;
-            if (uncleY.getColor() == RED) {
-                record.append("> Case 1: change color [uncleY (").append(uncleY.getData())
+            TreeNode<E> uncleY = case1;
+            if (colorOf(uncleY) == RED) {
+                if (isRecording()) record.append("> Case 1: change color [uncleY (").append(uncleY.getData())
                         .append(") to black, parent (").append(parent.getData())
                         .append(") to black, grandParent (").append(grandParent.getData())
                         .append(") to red]. Set z to grandParent (").append(grandParent.getData()).append(").\n")
@@ -106,11 +189,11 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
                 grandParent.setColor(RED);
                 z = grandParent;
 
-                record.append("after:\n");
+                if (isRecording()) record.append("after:\n");
                 recordTreeAsImage(z.getParent(),record);
             } else { // uncle is black
                 if (z == case2) { //
-                    record.append("> Case 2 uncle is black (triangle): Set z (").append(z.getData())
+                    if (isRecording()) record.append("> Case 2 uncle is black (triangle): Set z (").append(z.getData())
                             .append(") to parent (").append(parent.getData())
                             .append(") and then rotate z (").append(parent.getData()).append(").\n")
                             .append("Before:\n");
@@ -121,11 +204,11 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
                     else rightRotate(z);
                     parent = parent.getParent();
 
-                    record.append("after:\n");
+                    if (isRecording()) record.append("after:\n");
                     recordTreeAsImage(z.getParent(),record);
 
                 }
-                record.append("> Case 3 uncle is black (line): rotate grandParent (").append(grandParent.getData()).append("). ")
+                if (isRecording()) record.append("> Case 3 uncle is black (line): rotate grandParent (").append(grandParent.getData()).append("). ")
                         .append("Change color grandParent (").append(grandParent.getData())
                         .append(") to red and parent (").append(parent.getData()).append(") to black.\n")
                         .append("Before:\n");
@@ -136,17 +219,17 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
                 if (isGrandparentLeftChild) rightRotate(grandParent);
                 else leftRotate(grandParent);
 
-                record.append("After:\n");
-                record.append("> z is now ").append(z.getData()).append(".\n");
+                if (isRecording()) record.append("After:\n")
+                        .append("> z is now ").append(z.getData()).append(".\n");
                 recordTreeAsImage(z.getParent(),record);
             }
         }
 
         this.getRoot().setColor(BLACK);
 
-        record.append("> Loop is finished, set the root (").append(this.getRoot().getData()).append(") into black\n");
+        if (isRecording()) record.append("> Loop is finished, set the root (").append(this.getRoot().getData()).append(") into black\n");
         recordTreeAsImage(z,record);
-        addRecord(record.toString());
+        if (isRecording()) addRecord("RBTree.RBInsertFixup", record);
     }
 
     /**
@@ -159,18 +242,17 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
      *          the node in place of the deleted node or its sibling.
      */
     private void newRBDeleteFixup(TreeNode<E> x) {
-        StringBuilder record = new StringBuilder("> start delete fixup from "+x.getData()+"\n");
+        TreeRecord record = new TreeRecord();
+        if (isRecording()) record.append("> start delete fixup from ").append(x.getData()).append("\n");
         recordTreeAsImage(x,record);
         while (x != this.getRoot() && x.getColor() == BLACK ) {
             
             boolean isLeftChildrenOfParent = x == x.getParent().getLeft();
             TreeNode<E> w = isLeftChildrenOfParent ? x.getParent().getRight() : x.getParent().getLeft();
-            
-            w = w == null ? new TreeNode<>(null, BLACK) : w;
-            
-            if(w.getColor() == RED) {
+
+            if(colorOf(w) == RED) {
                 // case 1
-                record.append("> Case 1: change color w(").append(w.getData())
+                if (isRecording()) record.append("> Case 1: change color w(").append(w.getData())
                         .append("), x(").append(x.getData())
                         .append(") and x.parent (").append(x.getParent().getData())
                         .append("). Rotate x and then the sibling is w \n")
@@ -183,16 +265,14 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
                 else rightRotate(x.getParent());
                 w = isLeftChildrenOfParent ? x.getParent().getRight() : x.getParent().getLeft();
 
-                record.append("After:\n");
+                if (isRecording()) record.append("After:\n");
                 recordTreeAsImage(x.getParent(),record);
             }
-            w = w == null ? new TreeNode<>(null, BLACK) : w;
-            TreeNode<E> wLeftChild = w.getLeft() == null ? new TreeNode<>(null, BLACK) : w.getLeft();
-            TreeNode<E> wRightChild = w.getRight() == null ? new TreeNode<>(null, BLACK) : w.getRight();
-            
-            if(wLeftChild.getColor() == BLACK && wRightChild.getColor() == BLACK) {
+            // x is black and not the root, so its sibling w exists in a valid tree
+            Objects.requireNonNull(w, "The black node x has no sibling, the black heights are broken");
+            if(colorOf(w.getLeft()) == BLACK && colorOf(w.getRight()) == BLACK) {
                 // case 2
-                record.append("> Case 2: change color w (").append(w.getData())
+                if (isRecording()) record.append("> Case 2: change color w (").append(w.getData())
                         .append(") to red and x (").append(x.getData())
                         .append(") is the x.parent (").append(x.getParent().getData()).append(")\n")
                         .append("Before:\n");
@@ -201,23 +281,23 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
                 w.setColor(RED);
                 x = x.getParent();
 
-                record.append("after:\n");
+                if (isRecording()) record.append("after:\n");
                 recordTreeAsImage(x.getParent(),record);
             } else {
-                COLOR wChildrenColor = isLeftChildrenOfParent ? wRightChild.getColor() : wLeftChild.getColor();
+                COLOR wChildrenColor = colorOf(isLeftChildrenOfParent ? w.getRight() : w.getLeft());
                 if(wChildrenColor == BLACK) {
                     // case 3
                     // The children of x in the if statement must not be null,
                     // otherwise something totally wrong!
                     if (isLeftChildrenOfParent) {
                         E leftData = Objects.requireNonNull(w.getLeft()).getData();
-                        record.append("> Case 3: set w left child (").append(leftData).append(") into black. ")
+                        if (isRecording()) record.append("> Case 3: set w left child (").append(leftData).append(") into black. ")
                                 .append("Before:\n");
                         recordTreeAsImage(x.getParent(),record);
                         w.getLeft().setColor(BLACK);
                     } else {
                         E rightData = Objects.requireNonNull(w.getRight()).getData();
-                        record.append("> Case 3: set w right child (").append(rightData).append(") into black. ")
+                        if (isRecording()) record.append("> Case 3: set w right child (").append(rightData).append(") into black. ")
                                 .append("Before:\n");
                         recordTreeAsImage(x.getParent(),record);
                         w.getRight().setColor(BLACK);
@@ -225,21 +305,20 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
 
                     w.setColor(RED);
 
-                    record.append("Change w (").append(w.getData()).append(") color into red. ")
+                    if (isRecording()) record.append("Change w (").append(w.getData()).append(") color into red. ")
                             .append("\n");
                     recordTreeAsImage(x.getParent(),record);
 
                     if (isLeftChildrenOfParent) rightRotate(w);
                     else leftRotate(w);
 
-                    record.append("Rotate w (").append(w.getData()).append("). ")
+                    if (isRecording()) record.append("Rotate w (").append(w.getData()).append("). ")
                             .append("\n");
                     recordTreeAsImage(x.getParent(),record);
 
                     w = isLeftChildrenOfParent ? x.getParent().getRight() : x.getParent().getLeft();
-                    w = w == null ? new TreeNode<>(null, BLACK) : w;
 
-                    record.append("The sibling of x (").append(x.getData()).append(") become w (").append(w.getData()).append(") \n")
+                    if (isRecording()) record.append("The sibling of x (").append(x.getData()).append(") become w (").append(w.getData()).append(") \n")
                             .append("After:\n");
                     recordTreeAsImage(x.getParent(),record);
 
@@ -247,43 +326,43 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
                 // case 4
                 w.setColor(x.getParent().getColor());
 
-                record.append("> Case 4: Set w (").append(w.getData()).append(") color to x.parent (")
+                if (isRecording()) record.append("> Case 4: Set w (").append(w.getData()).append(") color to x.parent (")
                         .append(x.getParent().getColor()).append(") color.\n");
                 recordTreeAsImage(x.getParent(),record);
 
                 x.getParent().setColor(BLACK);
 
-                record.append("Set x.parent (").append(x.getParent().getData()).append(") color to BLACK.\n");
+                if (isRecording()) record.append("Set x.parent (").append(x.getParent().getData()).append(") color to BLACK.\n");
                 recordTreeAsImage(x.getParent(),record);
 
                 if (isLeftChildrenOfParent) {
                     w.getRight().setColor(BLACK);
 
-                    record.append("Set w.right child (").append(w.getRight().getData()).append(") color to BLACK.\n");
+                    if (isRecording()) record.append("Set w.right child (").append(w.getRight().getData()).append(") color to BLACK.\n");
                     recordTreeAsImage(x.getParent(),record);
                 } else {
                     w.getLeft().setColor(BLACK);
 
-                    record.append("Set w.left child (").append(w.getLeft().getData()).append(") color to BLACK.\n");
+                    if (isRecording()) record.append("Set w.left child (").append(w.getLeft().getData()).append(") color to BLACK.\n");
                     recordTreeAsImage(x.getParent(),record);
                 }
 
                 if (isLeftChildrenOfParent) leftRotate(x.getParent());
                 else rightRotate(x.getParent());
 
-                record.append("Perform Rotation on x.parent (").append(x.getParent().getData()).append(").\n");
+                if (isRecording()) record.append("Perform Rotation on x.parent (").append(x.getParent().getData()).append(").\n");
                 recordTreeAsImage(x.getParent(),record);
 
                 x = this.getRoot();
-                record.append("Set x to the root (").append(x.getData()).append("). \n")
+                if (isRecording()) record.append("Set x to the root (").append(x.getData()).append("). \n")
                         .append("After:\n");
                 recordTreeAsImage(x.getParent(),record);
             }
         }
         x.setColor(BLACK);
-        record.append("> Finish delete fixup. Change x (").append(x.getData()).append(") color to BLACK.\n");
+        if (isRecording()) record.append("> Finish delete fixup. Change x (").append(x.getData()).append(") color to BLACK.\n");
         recordTreeAsImage(x,record);
-        addRecord(record.toString());
+        if (isRecording()) addRecord("RBTree.newRBDeleteFixup", record);
     }
 
     /**
@@ -352,4 +431,178 @@ public class RBTree<E extends Comparable<E>> extends TreeService<E> {
             x.setColor(BLACK);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserts the key in one descent, like the top-down insertion of Sedgewick (Algorithms in C):
+     * a node with two red children is flipped on the way down, and a red node below a red parent
+     * is rotated up at once. So the new red leaf is attached without walking back up.
+     * <p>If the key is already in the tree, the flips and rotations done so far stay,
+     * the tree is a red-black tree with the same keys.</p>
+     *
+     * @return false if the key is already in the tree
+     */
+    private boolean topDownInsert(E data) {
+        if (getRoot() == null) {
+            setRoot(new TreeNode<>(data, BLACK));
+            if (isRecording()) addRecord("RBTree.topDownInsert", "\n- Insert " + data + " as the black root\n");
+            afterInsert(data);
+            return true;
+        }
+
+        int flips = 0, rotations = 0;
+        head.setRight(getRoot());
+        // great is the grandparent of parent, which is the parent of current
+        TreeNode<E> great = head, grand = null, parent = null, current = getRoot();
+        boolean dir = false, last = false, inserted = false;
+        while (true) {
+            if (current == null) {
+                current = new TreeNode<>(data, RED);
+                setChild(parent, dir, current);
+                inserted = true;
+            } else if (colorOf(current.getLeft()) == RED && colorOf(current.getRight()) == RED) {
+                current.setColor(RED);
+                current.getLeft().setColor(BLACK);
+                current.getRight().setColor(BLACK);
+                flips++;
+            }
+            if (colorOf(current) == RED && colorOf(parent) == RED) { // parent is red, so it is not the root
+                boolean side = great.getRight() == grand;
+                boolean outer = current == childOf(parent, last);
+                setChild(great, side, outer ? rotate(grand, !last) : rotateTwice(grand, !last));
+                rotations += outer ? 1 : 2;
+            }
+            if (inserted) break;
+            int cmp = compare(data, current.getData());
+            if (cmp == 0) break;
+
+            last = dir;
+            dir = cmp > 0;
+            if (grand != null) great = grand;
+            grand = parent;
+            parent = current;
+            current = childOf(current, dir);
+        }
+        detachHead();
+
+        if (!inserted) return false;
+        if (isRecording()) addRecord("RBTree.topDownInsert", "\n- Insert " + data + " top-down with "
+                + flips + " color flips and " + rotations + " rotations\n");
+        afterInsert(data);
+        return true;
+    }
+
+    /**
+     * Deletes the key in one descent, like the top-down deletion of Sedgewick:
+     * every node on the way down is made red (by a color flip or a rotation), if neither it nor its next child is red.
+     * So the node which is removed at the bottom is red, or it has a red child, and nothing has to be fixed afterwards.
+     * <p>The descent goes on below the target to its predecessor, whose key replaces the key of the target,
+     * and the predecessor is removed instead. If the key is not in the tree, the flips and rotations done so far stay,
+     * the tree is a red-black tree with the same keys.</p>
+     *
+     * @return the removed key of the tree, or null if the key is not in the tree
+     */
+    private E topDownDelete(E x) {
+        if (getRoot() == null) return null;
+
+        int flips = 0, rotations = 0;
+        head.setRight(getRoot());
+        TreeNode<E> grand = null, parent = null, current = head, found = null;
+        boolean dir = true;
+        while (childOf(current, dir) != null) {
+            boolean last = dir;
+            grand = parent;
+            parent = current;
+            current = childOf(current, dir);
+            int cmp = compare(x, current.getData());
+            if (cmp == 0) found = current;
+            dir = cmp > 0; // below the target, all keys are smaller, so it goes down to the predecessor
+
+            if (colorOf(current) == RED || colorOf(childOf(current, dir)) == RED) continue;
+            if (colorOf(childOf(current, !dir)) == RED) {
+                // rotate the red child up, so that current becomes red
+                TreeNode<E> top = rotate(current, dir);
+                setChild(parent, last, top);
+                parent = top;
+                rotations++;
+                continue;
+            }
+            TreeNode<E> sibling = childOf(parent, !last);
+            if (sibling == null) continue;
+            if (colorOf(sibling.getLeft()) != RED && colorOf(sibling.getRight()) != RED) {
+                parent.setColor(BLACK);
+                sibling.setColor(RED);
+                current.setColor(RED);
+                flips++;
+            } else {
+                boolean side = grand.getRight() == parent;
+                boolean inner = colorOf(childOf(sibling, last)) == RED;
+                TreeNode<E> top = inner ? rotateTwice(parent, last) : rotate(parent, last);
+                setChild(grand, side, top);
+                current.setColor(RED);
+                top.setColor(RED);
+                top.getLeft().setColor(BLACK);
+                top.getRight().setColor(BLACK);
+                rotations += inner ? 2 : 1;
+            }
+        }
+
+        E removed = found == null ? null : found.getData();
+        if (found != null) {
+            // current has one child at most
+            found.setData(current.getData());
+            setChild(parent, parent.getRight() == current, childOf(current, current.getLeft() == null));
+        }
+        detachHead();
+
+        if (found == null) return null;
+        if (isRecording()) addRecord("RBTree.topDownDelete", "- Delete " + x + " top-down with "
+                + flips + " color flips and " + rotations + " rotations\n");
+        return removed;
+    }
+
+    /**
+     * Makes the right child of the head the black root of the tree again, after a top-down modification.
+     */
+    private void detachHead( ) {
+        TreeNode<E> root = head.getRight();
+        head.setRight(null);
+        if (root != null) root.setColor(BLACK);
+        setRoot(root);
+    }
+
+    /**
+     * Rotates the subtree of the node to the given side, the node becomes red and its former child,
+     * the new root of the subtree, black. The node is unlinked from its parent,
+     * the caller links the returned root instead.
+     *
+     * @param right true for a right rotation
+     * @return the new root of the subtree
+     */
+    private TreeNode<E> rotate(TreeNode<E> node, boolean right) {
+        TreeNode<E> child = childOf(node, !right);
+        setChild(node, !right, childOf(child, right));
+        setChild(child, right, node);
+        node.setColor(RED);
+        child.setColor(BLACK);
+        return child;
+    }
+
+    /**
+     * Rotates the child of the node to the other side first, so that the inner grandchild becomes the new root.
+     *
+     * @see #rotate(TreeNode, boolean)
+     */
+    private TreeNode<E> rotateTwice(TreeNode<E> node, boolean right) {
+        setChild(node, !right, rotate(childOf(node, !right), !right));
+        return rotate(node, right);
+    }
+
+    private static <E extends Comparable<E>> TreeNode<E> childOf(TreeNode<E> node, boolean right) {
+        return right ? node.getRight() : node.getLeft();
+    }
+
+    private static <E extends Comparable<E>> void setChild(TreeNode<E> node, boolean right, TreeNode<E> child) {
+        if (right) node.setRight(child);
+        else node.setLeft(child);
+    }
+}
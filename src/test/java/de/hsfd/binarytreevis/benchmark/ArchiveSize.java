@@ -0,0 +1,54 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.KeyCodec;
+import de.hsfd.binarytreevis.services.PersistentNode;
+import de.hsfd.binarytreevis.services.TreeArchive;
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the size and the time of the HTML export of the history (the rendered records with the SVG images,
+ * which is what the download button saves) with a {@link TreeArchive} of the same tree and history.
+ * This is not a JMH benchmark, because the rendering takes seconds. Run it with:
+ * <pre>{@code java -cp <test classpath> de.hsfd.binarytreevis.benchmark.ArchiveSize [keys]}</pre>
+ */
+public class ArchiveSize {
+
+    public static void main(String[] args) throws TreeException, IOException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        for (String type : new String[]{"AVL", "RB"}) {
+            TreeService<Integer> tree = Benchmarks.newTree(type);
+            tree.setRecordingMode(RecordingMode.FULL);
+            List<PersistentNode<Integer>> versions = new ArrayList<>();
+            for (int key : Benchmarks.shuffledKeys(keys)) {
+                tree.main_insert(key);
+                versions.add(tree.freeze());
+            }
+
+            long start = System.nanoTime();
+            int html = tree.renderHistory(tree.getRecordList().size() - 1).getBytes(StandardCharsets.UTF_8).length;
+            long rendered = System.nanoTime();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TreeArchive.write(tree, versions, KeyCodec.INTEGER, Channels.newChannel(out));
+            long written = System.nanoTime();
+            TreeArchive.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), KeyCodec.INTEGER,
+                    Benchmarks.newTree(type));
+            long read = System.nanoTime();
+
+            System.out.printf("%-3s %d inserts: HTML %,d bytes in %,d ms, archive %,d bytes written in %,d us, read in %,d us%n",
+                    type, keys, html, (rendered - start) / 1_000_000, out.size(), (written - rendered) / 1000,
+                    (read - written) / 1000);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares inserting a batch of keys one by one (one status update and history entry per key)
+ * against {@link TreeService#insertAll(Iterable)}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"TEXT_ONLY"})
+    public RecordingMode mode;
+
+    @Param({"10000"})
+    public int keys;
+
+    private List<Integer> data;
+
+    @Setup
+    public void setUp( ) {
+        data = new ArrayList<>(keys);
+        for (int key : Benchmarks.shuffledKeys(keys)) data.add(key);
+    }
+
+    @Benchmark
+    public TreeService<Integer> mainInsert( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(mode);
+        for (int key : data) t.main_insert(key);
+        return t;
+    }
+
+    @Benchmark
+    public TreeService<Integer> insertAll( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(mode);
+        t.insertAll(data);
+        return t;
+    }
+}
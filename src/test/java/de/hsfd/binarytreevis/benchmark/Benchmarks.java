@@ -0,0 +1,53 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.avl.AVLTree;
+import de.hsfd.binarytreevis.services.bst.BSTree;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+
+import java.util.Random;
+
+/**
+ * Shared helpers of the JMH benchmarks.
+ * <p>The benchmarks are compiled with the test sources. Run them with:</p>
+ * <pre>{@code
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) org.openjdk.jmh.Main <BenchmarkName>
+ * }</pre>
+ */
+final class Benchmarks {
+
+    static final long SEED = 42;
+
+    private Benchmarks( ) {}
+
+    /**
+     * @param type AVL, RB or BST
+     * @return a new empty tree of the given type
+     */
+    static <E extends Comparable<E>> TreeService<E> newTree(String type) {
+        return switch (type) {
+            case "AVL" -> new AVLTree<>();
+            case "RB" -> new RBTree<>();
+            case "BST" -> new BSTree<>();
+            default -> throw new IllegalArgumentException("Unknown tree type: " + type);
+        };
+    }
+
+    /**
+     * @param n the amount of keys
+     * @return the keys 0 until n in a random (but reproducible) order
+     */
+    static int[] shuffledKeys(int n) {
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) keys[i] = i;
+        Random random = new Random(SEED);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+}
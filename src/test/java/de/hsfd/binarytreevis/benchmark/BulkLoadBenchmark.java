@@ -0,0 +1,66 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares seeding an empty tree with {@link TreeService#bulkLoad(Iterable)}
+ * against inserting the keys one by one without recording.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"1000000"})
+    public int keys;
+
+    private int[] shuffled;
+
+    private List<Integer> sorted;
+
+    @Setup
+    public void setUp( ) {
+        shuffled = Benchmarks.shuffledKeys(keys);
+        sorted = new ArrayList<>(keys);
+        for (int i = 0; i < keys; i++) sorted.add(i);
+    }
+
+    @Benchmark
+    public TreeService<Integer> insert( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (int key : shuffled) t.main_insert(key);
+        return t;
+    }
+
+    @Benchmark
+    public TreeService<Integer> bulkLoadShuffled( ) {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        List<Integer> keys = new ArrayList<>(shuffled.length);
+        for (int key : shuffled) keys.add(key);
+        t.bulkLoad(keys);
+        return t;
+    }
+
+    @Benchmark
+    public TreeService<Integer> bulkLoadSorted( ) {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        t.bulkLoad(sorted);
+        return t;
+    }
+}
@@ -0,0 +1,72 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.ConcurrentTree;
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a tree shared by several threads with a mix of searches and modifications,
+ * comparing {@link ConcurrentTree} (optimistic reads) with one global lock around every call.
+ * Half of the keys are in the tree, a modification inserts or deletes a random key.
+ * The amount of threads can be changed with {@code -t}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentTreeBenchmark {
+
+    @Param({"RB"})
+    public String tree;
+
+    @Param({"stamped", "synchronized"})
+    public String lock;
+
+    @Param({"95", "50"})
+    public int readPercent;
+
+    @Param({"100000"})
+    public int keys;
+
+    private TreeService<Integer> t;
+
+    private ConcurrentTree<Integer> shared;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        shared = new ConcurrentTree<>(t);
+        for (int key : Benchmarks.shuffledKeys(keys)) shared.insert(key * 2);
+    }
+
+    @Benchmark
+    public boolean mix( ) throws TreeException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(keys * 2);
+        boolean read = random.nextInt(100) < readPercent;
+        if (lock.equals("stamped")) {
+            if (read) return shared.search(key);
+            return random.nextBoolean() ? shared.insert(key) : shared.delete(key);
+        }
+        synchronized (this) {
+            if (read) return t.search(key);
+            if (t.search(key)) {
+                if (random.nextBoolean()) return false;
+                t.delete(key);
+            } else {
+                if (random.nextBoolean()) return false;
+                t.main_insert(key);
+            }
+            return true;
+        }
+    }
+}
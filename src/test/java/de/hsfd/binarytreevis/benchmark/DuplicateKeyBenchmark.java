@@ -0,0 +1,79 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.Outcome;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the outcomes which are not an error for an ingest: inserting a key which is already in the tree
+ * and deleting a key which is not. Each one is reported by a {@link TreeException}
+ * ({@link TreeService#main_insert(Comparable)}, {@link TreeService#delete(Comparable)})
+ * or by a status ({@link TreeService#tryInsert(Comparable)}, {@link TreeService#tryDelete(Comparable)}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DuplicateKeyBenchmark {
+
+    @Param({"100000"})
+    public int keys;
+
+    private TreeService<Integer> t;
+
+    private Integer[] present;
+
+    private Integer[] missing;
+
+    private int next;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        t = Benchmarks.newTree("RB");
+        t.setRecordingMode(RecordingMode.OFF);
+        present = new Integer[keys];
+        missing = new Integer[keys];
+        int[] shuffled = Benchmarks.shuffledKeys(keys);
+        for (int i = 0; i < keys; i++) {
+            present[i] = shuffled[i] * 2;
+            missing[i] = shuffled[i] * 2 + 1;
+            t.main_insert(present[i]);
+        }
+    }
+
+    @Benchmark
+    public Throwable duplicateByException( ) {
+        try {
+            t.main_insert(present[next++ % keys]);
+            return null;
+        } catch (TreeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Outcome duplicateByTryInsert( ) throws TreeException {
+        return t.tryInsert(present[next++ % keys]);
+    }
+
+    @Benchmark
+    public Throwable missingByException( ) {
+        try {
+            t.delete(missing[next++ % keys]);
+            return null;
+        } catch (TreeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Outcome missingByTryDelete( ) throws TreeException {
+        return t.tryDelete(missing[next++ % keys]);
+    }
+}
@@ -0,0 +1,54 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills an empty tree with random keys, of which about a third are duplicates:
+ * {@link TreeService#search(Comparable)} before {@link TreeService#main_insert(Comparable)} (two descents per new key)
+ * against {@link TreeService#insertIfAbsent(Comparable)} (one descent).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class InsertIfAbsentBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"10000000"})
+    public int keys;
+
+    private Integer[] random;
+
+    @Setup
+    public void setUp( ) {
+        Random r = new Random(Benchmarks.SEED);
+        random = new Integer[keys];
+        for (int i = 0; i < keys; i++) random[i] = r.nextInt(keys);
+    }
+
+    @Benchmark
+    public TreeService<Integer> searchThenInsert( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (Integer key : random) if (!t.search(key)) t.main_insert(key);
+        return t;
+    }
+
+    @Benchmark
+    public TreeService<Integer> insertIfAbsent( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (Integer key : random) t.insertIfAbsent(key);
+        return t;
+    }
+}
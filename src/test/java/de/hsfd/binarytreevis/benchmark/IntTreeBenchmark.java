@@ -0,0 +1,116 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.HeapNodeStore;
+import de.hsfd.binarytreevis.services.IntTree;
+import de.hsfd.binarytreevis.services.NodeStore;
+import de.hsfd.binarytreevis.services.OffHeapNodeStore;
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.avl.IntAVLTree;
+import de.hsfd.binarytreevis.services.rbt.IntRBTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed trees ({@link TreeService} of Integer, recording OFF) with the int trees ({@link IntTree}),
+ * whose nodes are stored on the heap or off-heap ({@link OffHeapNodeStore}).
+ * The memory per node is measured by {@link IntTreeFootprint}.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class IntTreeBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"1000000"})
+    public int keys;
+
+    private int[] data;
+
+    private TreeService<Integer> boxed;
+
+    private IntTree primitive;
+
+    private IntTree offHeap;
+
+    private int next;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        data = Benchmarks.shuffledKeys(keys);
+        boxed = insertBoxed();
+        primitive = insertInt();
+        offHeap = insert(newIntTree(tree, new OffHeapNodeStore(keys + 1)));
+    }
+
+    @TearDown
+    public void tearDown( ) {
+        offHeap.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public TreeService<Integer> insertBoxed( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (int key : data) t.main_insert(key);
+        return t;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public IntTree insertInt( ) {
+        return insert(newIntTree(tree, new HeapNodeStore(16)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int insertOffHeap( ) {
+        try (IntTree t = insert(newIntTree(tree, new OffHeapNodeStore(16)))) {
+            return t.size();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public boolean searchBoxed( ) {
+        return boxed.search(data[nextIndex()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public boolean searchInt( ) {
+        return primitive.contains(data[nextIndex()]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public boolean searchOffHeap( ) {
+        return offHeap.contains(data[nextIndex()]);
+    }
+
+    private IntTree insert(IntTree t) {
+        for (int key : data) t.insert(key);
+        return t;
+    }
+
+    private int nextIndex( ) {
+        int i = next;
+        next = i + 1 == keys ? 0 : i + 1;
+        return i;
+    }
+
+    static IntTree newIntTree(String type, NodeStore store) {
+        return switch (type) {
+            case "AVL" -> new IntAVLTree(store);
+            case "RB" -> new IntRBTree(store);
+            default -> throw new IllegalArgumentException("Unknown tree type: " + type);
+        };
+    }
+}
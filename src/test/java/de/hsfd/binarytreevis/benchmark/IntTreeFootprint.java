@@ -0,0 +1,58 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.HeapNodeStore;
+import de.hsfd.binarytreevis.services.IntTree;
+import de.hsfd.binarytreevis.services.OffHeapNodeStore;
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+
+import java.lang.ref.Reference;
+
+/**
+ * Measures the retained heap per key of the boxed trees and the int trees, see {@link IntTreeBenchmark}.
+ * For the off-heap store the reserved memory outside the heap is shown as well.
+ * This is not a JMH benchmark, because JMH cannot measure the retained memory. Run it with:
+ * <pre>{@code java -cp <test classpath> de.hsfd.binarytreevis.benchmark.IntTreeFootprint [keys]}</pre>
+ */
+public class IntTreeFootprint {
+
+    public static void main(String[] args) throws TreeException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[] data = Benchmarks.shuffledKeys(keys);
+
+        for (String type : new String[]{"AVL", "RB"}) {
+            long before = usedHeap();
+            TreeService<Integer> boxed = Benchmarks.newTree(type);
+            boxed.setRecordingMode(RecordingMode.OFF);
+            for (int key : data) boxed.main_insert(key);
+            long after = usedHeap();
+            Reference.reachabilityFence(boxed);
+            System.out.printf("%-3s boxed: %5.1f bytes per key%n", type, (after - before) / (double) keys);
+            boxed = null;
+
+            before = usedHeap();
+            IntTree primitive = IntTreeBenchmark.newIntTree(type, new HeapNodeStore(16));
+            for (int key : data) primitive.insert(key);
+            after = usedHeap();
+            Reference.reachabilityFence(primitive);
+            System.out.printf("%-3s int:   %5.1f bytes per key%n", type, (after - before) / (double) keys);
+            primitive = null;
+
+            before = usedHeap();
+            OffHeapNodeStore store = new OffHeapNodeStore(16);
+            try (IntTree offHeap = IntTreeBenchmark.newIntTree(type, store)) {
+                for (int key : data) offHeap.insert(key);
+                after = usedHeap();
+                System.out.printf("%-3s off-heap: %5.1f bytes per key on the heap, %5.1f bytes per key off-heap%n",
+                        type, (after - before) / (double) keys, store.capacity() * 20.0 / keys);
+            }
+        }
+    }
+
+    private static long usedHeap( ) {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,72 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.ConcurrentTree;
+import de.hsfd.binarytreevis.services.LockFreeTree;
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the same mix of searches and modifications as {@link ConcurrentTreeBenchmark} on {@link LockFreeTree},
+ * on the red-black tree behind a {@link ConcurrentTree} and on a {@link ConcurrentSkipListSet}
+ * (the key set of a {@link java.util.concurrent.ConcurrentSkipListMap}).
+ * The amount of threads can be changed with {@code -t}, it should be the amount of cores to see the scaling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LockFreeTreeBenchmark {
+
+    @Param({"lockFree", "lockedRB", "skipList"})
+    public String impl;
+
+    @Param({"95", "50"})
+    public int readPercent;
+
+    @Param({"100000"})
+    public int keys;
+
+    private LockFreeTree<Integer> lockFree;
+
+    private ConcurrentTree<Integer> locked;
+
+    private ConcurrentSkipListSet<Integer> skipList;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        lockFree = new LockFreeTree<>();
+        TreeService<Integer> rbt = Benchmarks.newTree("RB");
+        rbt.setRecordingMode(RecordingMode.OFF);
+        locked = new ConcurrentTree<>(rbt);
+        skipList = new ConcurrentSkipListSet<>();
+        for (int key : Benchmarks.shuffledKeys(keys)) {
+            switch (impl) {
+                case "lockFree" -> lockFree.insert(key * 2);
+                case "lockedRB" -> locked.insert(key * 2);
+                default -> skipList.add(key * 2);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean mix( ) throws TreeException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(keys * 2);
+        boolean read = random.nextInt(100) < readPercent;
+        boolean insert = random.nextBoolean();
+        return switch (impl) {
+            case "lockFree" -> read ? lockFree.search(key) : insert ? lockFree.insert(key) : lockFree.delete(key);
+            case "lockedRB" -> read ? locked.search(key) : insert ? locked.insert(key) : locked.delete(key);
+            default -> read ? skipList.contains(key) : insert ? skipList.add(key) : skipList.remove(key);
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TreeService#lookup(Comparable)} of the keys in random order, with cheap keys (Integer)
+ * and expensive ones: long strings with a common prefix, so that every comparison runs over the prefix first.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LookupBenchmark {
+
+    private static final String PREFIX = "https://example.org/archive/2026/records/customer/";
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"100000"})
+    public int keys;
+
+    private TreeService<Integer> integers;
+
+    private TreeService<String> strings;
+
+    private Integer[] integerOrder;
+
+    private String[] stringOrder;
+
+    private int next;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        integers = Benchmarks.newTree(tree);
+        strings = Benchmarks.newTree(tree);
+        integers.setRecordingMode(RecordingMode.OFF);
+        strings.setRecordingMode(RecordingMode.OFF);
+        for (int key : Benchmarks.shuffledKeys(keys)) {
+            integers.main_insert(key);
+            strings.main_insert(stringOf(key));
+        }
+        int[] order = Benchmarks.shuffledKeys(keys);
+        integerOrder = new Integer[keys];
+        stringOrder = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            integerOrder[i] = order[i];
+            stringOrder[i] = stringOf(order[i]);
+        }
+    }
+
+    @Benchmark
+    public Integer lookupInteger( ) {
+        return integers.lookup(integerOrder[next++ % keys]);
+    }
+
+    @Benchmark
+    public String lookupString( ) {
+        return strings.lookup(stringOrder[next++ % keys]);
+    }
+
+    private static String stringOf(int key) {
+        return PREFIX + String.format("%08d", key);
+    }
+}
@@ -0,0 +1,49 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.MappedNodeStore;
+import de.hsfd.binarytreevis.services.rbt.IntRBTree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures how long it takes to reopen a red-black tree of a {@link MappedNodeStore},
+ * compared with rebuilding it by inserting all keys.
+ * The file is created by the first run and reused by the next ones, so that the reopening can be measured
+ * in a new JVM. This is not a JMH benchmark, because a JMH fork would have to build the tree first. Run it with:
+ * <pre>{@code java -cp <test classpath> de.hsfd.binarytreevis.benchmark.MappedTreeReopen [keys] [file]}</pre>
+ */
+public class MappedTreeReopen {
+
+    public static void main(String[] args) throws IOException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        Path file = args.length > 1 ? Path.of(args[1]) : Path.of(System.getProperty("java.io.tmpdir"), "rbtree-" + keys + ".bin");
+
+        if (Files.notExists(file)) {
+            long start = System.nanoTime();
+            try (IntRBTree tree = new IntRBTree(new MappedNodeStore(file, keys + 1))) {
+                // ascending keys touch the pages of the file almost in order, random keys would make the operating system
+                // write back the dirty pages randomly, which takes longer than the build itself
+                for (int key = 0; key < keys; key++) tree.insert(key);
+                tree.sync();
+            }
+            System.out.printf("build:  %,d keys in %,d ms, %,d MB file%n", keys, (System.nanoTime() - start) / 1_000_000,
+                    Files.size(file) >> 20);
+        }
+
+        long start = System.nanoTime();
+        IntRBTree tree = new IntRBTree(new MappedNodeStore(file));
+        long opened = System.nanoTime();
+        Random random = new Random(Benchmarks.SEED);
+        int found = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (tree.contains(random.nextInt(keys))) found++;
+        }
+        long searched = System.nanoTime();
+        System.out.printf("reopen: %,d keys in %,d us, first 1000 searches in %,d us (%d found)%n",
+                tree.size(), (opened - start) / 1000, (searched - opened) / 1000, found);
+        tree.close();
+    }
+}
@@ -0,0 +1,76 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeNode;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a percentile query on a live tree, which is modified before every query:
+ * {@link TreeService#select(int)} by the subtree sizes against an in-order walk until the k-th key.
+ * {@code modifyOnly} is the modification without a query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderStatisticsBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"100000"})
+    public int keys;
+
+    private TreeService<Integer> t;
+
+    private int next;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (int key : Benchmarks.shuffledKeys(keys)) t.main_insert(key * 2);
+    }
+
+    @Benchmark
+    public int modifyOnly( ) throws TreeException {
+        modify();
+        return next;
+    }
+
+    @Benchmark
+    public Integer medianBySelect( ) throws TreeException {
+        modify();
+        return t.select(keys / 2);
+    }
+
+    @Benchmark
+    public Integer medianByWalk( ) throws TreeException {
+        modify();
+        int k = keys / 2;
+        ArrayDeque<TreeNode<Integer>> stack = new ArrayDeque<>();
+        TreeNode<Integer> current = t.getRoot();
+        while (true) {
+            for (; current != null; current = current.getLeft()) stack.push(current);
+            current = stack.pop();
+            if (k-- == 0) return current.getData();
+            current = current.getRight();
+        }
+    }
+
+    /**
+     * Inserts an odd key and deletes it again, so that the tree keeps its keys but its paths are changed.
+     */
+    private void modify( ) throws TreeException {
+        int key = next++ % keys * 2 + 1;
+        t.main_insert(key);
+        t.delete(key);
+    }
+}
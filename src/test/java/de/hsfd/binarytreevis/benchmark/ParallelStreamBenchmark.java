@@ -0,0 +1,60 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a sum and a filter over all keys of a tree, sequential and parallel (common ForkJoinPool),
+ * see {@link TreeService#spliterator()}. The speedup is the sequential time divided by the parallel time.
+ * The tree is built with {@link TreeService#bulkLoad(Iterable)}, 10M keys need about 1.5 GB of heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ParallelStreamBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"10000000"})
+    public int keys;
+
+    private TreeService<Integer> t;
+
+    @Setup
+    public void setUp( ) {
+        t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        List<Integer> shuffled = new ArrayList<>(keys);
+        for (int key : Benchmarks.shuffledKeys(keys)) shuffled.add(key);
+        t.bulkLoad(shuffled);
+    }
+
+    @Benchmark
+    public long sumSequential( ) {
+        return t.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long sumParallel( ) {
+        return t.stream().parallel().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long filterSequential( ) {
+        return t.stream().filter(key -> key % 3 == 0).count();
+    }
+
+    @Benchmark
+    public long filterParallel( ) {
+        return t.stream().parallel().filter(key -> key % 3 == 0).count();
+    }
+}
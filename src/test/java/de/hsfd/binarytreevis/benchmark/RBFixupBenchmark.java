@@ -0,0 +1,66 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the churn of a red-black tree: a random key is deleted if it is in the tree, otherwise inserted,
+ * so that half of the operations run the delete fixup and the other half the insert fixup.
+ * Both balancing modes of {@link RBTree} are measured: the bottom-up fixups and the top-down single pass.
+ * Run it with {@code -prof gc} to see the allocations per operation ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RBFixupBenchmark {
+
+    @Param({"BOTTOM_UP", "TOP_DOWN"})
+    public RBTree.Balancing balancing;
+
+    @Param({"100000"})
+    public int keys;
+
+    private RBTree<Integer> t;
+
+    private int[] order;
+
+    private int next;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        t = new RBTree<>();
+        t.setBalancing(balancing);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (int key : Benchmarks.shuffledKeys(keys)) if (key % 2 == 0) t.main_insert(key);
+        order = Benchmarks.shuffledKeys(keys);
+    }
+
+    @Benchmark
+    public boolean churn( ) throws TreeException {
+        Integer key = order[next++ % keys];
+        if (t.search(key)) {
+            t.delete(key);
+            return false;
+        }
+        t.main_insert(key);
+        return true;
+    }
+
+    /**
+     * The same churn without the search before, the key is deleted in the descent which finds it.
+     */
+    @Benchmark
+    public TreeService.Outcome churnWithoutSearch( ) throws TreeException {
+        Integer key = order[next++ % keys];
+        TreeService.Outcome deleted = t.tryDelete(key);
+        return deleted == TreeService.Outcome.DELETED ? deleted : t.tryInsert(key);
+    }
+}
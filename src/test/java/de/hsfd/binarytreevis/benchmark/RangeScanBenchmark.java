@@ -0,0 +1,86 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeNode;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sum of the keys of a random range of {@code width} keys:
+ * the lazy {@link TreeService#range(Comparable, Comparable)} against an in-order walk with a stack,
+ * which skips the subtrees outside the range, and against a filter of {@link TreeService#getNodes()}
+ * (the only ordered view before the range queries, which needs no sorting for a sum).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RangeScanBenchmark {
+
+    @Param({"RB"})
+    public String tree;
+
+    @Param({"100000"})
+    public int keys;
+
+    @Param({"10", "1000"})
+    public int width;
+
+    private TreeService<Integer> t;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        for (int key : Benchmarks.shuffledKeys(keys)) t.main_insert(key);
+    }
+
+    @Benchmark
+    public long range( ) {
+        int lo = ThreadLocalRandom.current().nextInt(keys - width);
+        long sum = 0;
+        for (Iterator<Integer> it = t.range(lo, lo + width - 1); it.hasNext(); ) sum += it.next();
+        return sum;
+    }
+
+    @Benchmark
+    public long stackWalk( ) {
+        int lo = ThreadLocalRandom.current().nextInt(keys - width);
+        int hi = lo + width - 1;
+        long sum = 0;
+        ArrayDeque<TreeNode<Integer>> stack = new ArrayDeque<>();
+        TreeNode<Integer> current = t.getRoot();
+        while (current != null || !stack.isEmpty()) {
+            while (current != null) {
+                if (current.getData() < lo) {
+                    current = current.getRight();
+                } else {
+                    stack.push(current);
+                    current = current.getLeft();
+                }
+            }
+            current = stack.pop();
+            if (current.getData() > hi) break;
+            sum += current.getData();
+            current = current.getRight();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long filterNodes( ) {
+        int lo = ThreadLocalRandom.current().nextInt(keys - width);
+        int hi = lo + width - 1;
+        long sum = 0;
+        for (int key : t.getNodes()) if (key >= lo && key <= hi) sum += key;
+        return sum;
+    }
+}
@@ -0,0 +1,64 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.bst.BSTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of prefixing a record with the modification step.
+ * <ul>
+ *     <li>stackTrace: the previous implementation, which captures the whole stack trace.</li>
+ *     <li>stackWalker: {@link TreeService#addRecord(String)}, which only walks to the caller.</li>
+ *     <li>explicitStep: {@link TreeService#addRecord(String, String)}, which does not look at the stack at all.</li>
+ * </ul>
+ * Every invocation records {@value #RECORDS} steps into a new tree, so that the record does not grow endlessly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordCallerBenchmark {
+
+    private static final int RECORDS = 8;
+
+    /**
+     * The previous implementation of {@link TreeService#addRecord(String)}.
+     */
+    static class StackTraceTree extends BSTree<Integer> {
+        @Override
+        public void addRecord(String rec) {
+            StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+            String className = stackTrace[2].getClassName().substring(stackTrace[2].getClassName().lastIndexOf('.') + 1);
+            String methodName = stackTrace[2].getMethodName();
+            addRecord(className + "." + methodName, rec);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public TreeService<Integer> stackTrace( ) {
+        TreeService<Integer> tree = new StackTraceTree();
+        for (int i = 0; i < RECORDS; i++) tree.addRecord("> Case 1 one child\n");
+        return tree;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public TreeService<Integer> stackWalker( ) {
+        TreeService<Integer> tree = new BSTree<>();
+        for (int i = 0; i < RECORDS; i++) tree.addRecord("> Case 1 one child\n");
+        return tree;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public TreeService<Integer> explicitStep( ) {
+        TreeService<Integer> tree = new BSTree<>();
+        for (int i = 0; i < RECORDS; i++) tree.addRecord("RecordCallerBenchmark.explicitStep", "> Case 1 one child\n");
+        return tree;
+    }
+}
@@ -0,0 +1,59 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+
+import java.lang.ref.Reference;
+import java.util.Random;
+
+/**
+ * Measures the retained heap of a tree and its history after a number of modifications.
+ * This is not a JMH benchmark, because JMH cannot measure the retained memory. Run it with:
+ * <pre>{@code java -cp <test classpath> de.hsfd.binarytreevis.benchmark.RecordHistoryFootprint [operations] [keys]}</pre>
+ * The operations are random inserts and deletes of the given amount of keys,
+ * so that the size of the tree stays the same while the history grows.
+ */
+public class RecordHistoryFootprint {
+
+    public static void main(String[] args) throws TreeException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        // warm up, so that the loaded classes and caches are not counted
+        for (String type : new String[]{"AVL", "RB"}) modify(type, RecordingMode.FULL, operations, keys);
+
+        for (String type : new String[]{"AVL", "RB"}) {
+            for (RecordingMode mode : new RecordingMode[]{RecordingMode.TEXT_ONLY, RecordingMode.FULL}) {
+                System.out.printf("%-3s %-9s %,d operations: %,8d KiB retained%n",
+                        type, mode, operations, retainedHeap(type, mode, operations, keys) / 1024);
+            }
+        }
+    }
+
+    private static long retainedHeap(String type, RecordingMode mode, int operations, int keys) throws TreeException {
+        long before = usedHeap();
+        TreeService<Integer> tree = modify(type, mode, operations, keys);
+        long after = usedHeap();
+        Reference.reachabilityFence(tree);
+        return after - before;
+    }
+
+    private static TreeService<Integer> modify(String type, RecordingMode mode, int operations, int keys) throws TreeException {
+        TreeService<Integer> tree = Benchmarks.newTree(type);
+        tree.setRecordingMode(mode);
+        Random random = new Random(Benchmarks.SEED);
+        for (int i = 0; i < operations; i++) {
+            int key = random.nextInt(keys);
+            if (tree.search(key)) tree.delete(key);
+            else tree.main_insert(key);
+        }
+        return tree;
+    }
+
+    private static long usedHeap( ) {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
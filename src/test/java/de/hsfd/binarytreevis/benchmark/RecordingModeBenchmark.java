@@ -0,0 +1,47 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to insert all keys into an empty tree with each {@link RecordingMode}.
+ * <p>FULL is the behaviour of the visualisation, which takes a snapshot of the whole tree for every step.
+ * Because of that the default size is small. The million-key load without recording can be started with:</p>
+ * <pre>{@code java -cp <test classpath> org.openjdk.jmh.Main RecordingModeBenchmark -p mode=OFF -p keys=1000000}</pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordingModeBenchmark {
+
+    @Param({"AVL", "RB"})
+    public String tree;
+
+    @Param({"OFF", "TEXT_ONLY", "FULL"})
+    public RecordingMode mode;
+
+    @Param({"100"})
+    public int keys;
+
+    private int[] data;
+
+    @Setup
+    public void setUp( ) {
+        data = Benchmarks.shuffledKeys(keys);
+    }
+
+    @Benchmark
+    public TreeService<Integer> insert( ) throws TreeException {
+        TreeService<Integer> t = Benchmarks.newTree(tree);
+        t.setRecordingMode(mode);
+        for (int key : data) t.main_insert(key);
+        return t;
+    }
+}
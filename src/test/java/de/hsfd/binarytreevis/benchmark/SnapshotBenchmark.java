@@ -0,0 +1,65 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one modification followed by a consistent read-only version of the tree:
+ * the copy constructor copies the whole tree, {@link TreeService#snapshot()} only publishes the changed path.
+ * {@code modifyOnly} is the modification without any version (no snapshot has been taken in its fork).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int keys;
+
+    private RBTree<Integer> tree;
+
+    private int next;
+
+    @Setup
+    public void setUp( ) throws TreeException {
+        tree = new RBTree<>();
+        tree.setRecordingMode(RecordingMode.OFF);
+        for (int key : Benchmarks.shuffledKeys(keys)) tree.main_insert(key);
+        next = keys;
+    }
+
+    @Benchmark
+    public int modifyOnly( ) throws TreeException {
+        modify();
+        return next;
+    }
+
+    @Benchmark
+    public Object modifyAndCopy( ) throws TreeException {
+        modify();
+        return new RBTree<>(tree);
+    }
+
+    @Benchmark
+    public Object modifyAndSnapshot( ) throws TreeException {
+        modify();
+        return tree.snapshot();
+    }
+
+    /**
+     * Inserts a new key and deletes the oldest one, so that the size of the tree stays the same.
+     */
+    private void modify( ) throws TreeException {
+        tree.main_insert(next);
+        tree.delete(next - keys);
+        next++;
+    }
+}
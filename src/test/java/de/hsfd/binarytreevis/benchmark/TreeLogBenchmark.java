@@ -0,0 +1,68 @@
+package de.hsfd.binarytreevis.benchmark;
+
+import de.hsfd.binarytreevis.services.KeyCodec;
+import de.hsfd.binarytreevis.services.TreeException;
+import de.hsfd.binarytreevis.services.TreeLog;
+import de.hsfd.binarytreevis.services.TreeService;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of inserts into a tree with a {@link TreeLog}, with an fsync per operation (groupSize = 1)
+ * and with group commit. Without a log ({@code groupSize = 0}) it shows the cost of the tree alone.
+ * The checkpoints are turned off, so that only the log is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeLogBenchmark {
+
+    @Param({"RB"})
+    public String tree;
+
+    @Param({"0", "1", "64", "1024"})
+    public int groupSize;
+
+    private TreeService<Integer> t;
+
+    private TreeLog<Integer> log;
+
+    private Path directory;
+
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp( ) throws IOException, TreeException {
+        t = Benchmarks.newTree(tree);
+        t.setRecordingMode(RecordingMode.OFF);
+        next = 0;
+        if (groupSize == 0) return;
+        directory = Files.createTempDirectory("tree-log");
+        log = new TreeLog<>(directory.resolve("tree.log"), KeyCodec.INTEGER, groupSize, Integer.MAX_VALUE);
+        log.recover(t);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown( ) throws IOException {
+        if (log == null) return;
+        log.close();
+        log = null;
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void insert( ) throws TreeException {
+        t.main_insert(next++);
+    }
+}
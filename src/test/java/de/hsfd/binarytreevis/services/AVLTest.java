@@ -3,6 +3,8 @@ package de.hsfd.binarytreevis.services;
 import de.hsfd.binarytreevis.services.avl.AVLTree;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+
 import static de.hsfd.binarytreevis.services.TreeNode.DEFAULT_HEIGHT;
 import static de.hsfd.binarytreevis.services.BSTTest.isBinarySearchTree;
 import static org.junit.jupiter.api.Assertions.*;
@@ -222,6 +224,42 @@ public class AVLTest {
         assertTrue(isBalanced(avl.getRoot()));
     }
 
+    @Test
+    void delete_rotationUpdatesTheHeightOfTheRotatedNode() throws TreeException {
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int i : new int[]{4, 2, 5, 1, 3}) avlTree.main_insert(i);
+        avlTree.delete(4); // 5 replaces 4 and is left heavy, the right rotation moves 3 below 5
+
+        TreeNode<Integer> rotated = avlTree.getRoot().getRight();
+        assertEquals(2, avlTree.getRoot().getData());
+        assertEquals(5, rotated.getData());
+        assertEquals(3, rotated.getLeft().getData());
+        assertEquals(2, rotated.getHeight(), "5 has the child 3, so its height is 2");
+        assertHeights(avlTree.getRoot());
+    }
+
+    @Test
+    public void testBulkLoad() throws IllegalAccessException {
+        for (int n = 1; n <= 130; n++) {
+            AVLTree<Integer> avl = new AVLTree<>();
+            ArrayList<Integer> keys = new ArrayList<>();
+            for (int i = n; i > 0; i--) keys.add(i * 2);
+            avl.bulkLoad(keys);
+
+            assertTrue(isBinarySearchTree(avl.getRoot()));
+            assertTrue(isBalanced(avl.getRoot()), "The bulk loaded tree of " + n + " keys is not balanced");
+            assertHeights(avl.getRoot());
+            assertEquals(n, avl.size);
+        }
+    }
+
+    private int assertHeights(TreeNode<Integer> node) {
+        if (node == null) return DEFAULT_HEIGHT - 1;
+        int height = Math.max(assertHeights(node.getLeft()), assertHeights(node.getRight())) + 1;
+        assertEquals(height, node.getHeight(), "Wrong height of " + node.getData());
+        return height;
+    }
+
     private boolean isBalanced(TreeNode<Integer> node) {
         if (node == null) {
             return true;
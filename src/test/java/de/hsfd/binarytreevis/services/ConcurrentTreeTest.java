@@ -0,0 +1,108 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.avl.AVLTree;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static de.hsfd.binarytreevis.services.BSTTest.isBinarySearchTree;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTreeTest {
+
+    private static final int WRITERS = 3;
+    private static final int KEYS_PER_WRITER = 3000;
+
+    @Test
+    void readersAlwaysFindTheStableKeys_whileWritersRotate() throws Exception, TreeException {
+        for (TreeService<Integer> tree : List.<TreeService<Integer>>of(new AVLTree<>(), new RBTree<>())) {
+            tree.setRecordingMode(RecordingMode.OFF);
+            ConcurrentTree<Integer> shared = new ConcurrentTree<>(tree);
+            // the negative keys are never deleted, so every search for them has to succeed
+            for (int key = -1; key >= -1000; key--) shared.insert(key);
+
+            AtomicBoolean writing = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 2);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int from = w * KEYS_PER_WRITER;
+                writers.add(executor.submit(() -> {
+                    try {
+                        for (int key = from; key < from + KEYS_PER_WRITER; key++) assertTrue(shared.insert(key));
+                        for (int key = from; key < from + KEYS_PER_WRITER; key += 2) assertTrue(shared.delete(key));
+                    } catch (TreeException e) {
+                        throw new AssertionError(e);
+                    }
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    Random random = new Random();
+                    while (writing.get()) {
+                        int key = -1 - random.nextInt(1000);
+                        assertEquals(key, shared.lookup(key), "A stable key was not found");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) writer.get();
+            writing.set(false);
+            for (Future<?> reader : readers) reader.get();
+            executor.shutdown();
+
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int key = -1; key >= -1000; key--) expected.add(key);
+            for (int key = 1; key < WRITERS * KEYS_PER_WRITER; key += 2) expected.add(key);
+            assertTrue(isBinarySearchTree(tree.getRoot()));
+            assertEquals(expected, new TreeSet<>(tree.getNodes()));
+            assertEquals(expected.size(), shared.size());
+            assertFalse(shared.insert(1));
+            assertFalse(shared.delete(0));
+        }
+    }
+
+    @Test
+    void snapshotsAreConsistent_whileTheWriterContinues() throws Exception {
+        RBTree<Integer> tree = new RBTree<>();
+        tree.setRecordingMode(RecordingMode.OFF);
+        ConcurrentTree<Integer> shared = new ConcurrentTree<>(tree);
+        shared.snapshot();
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> {
+            try {
+                for (int key = 0; key < 5000; key++) shared.insert(key);
+            } catch (TreeException e) {
+                throw new AssertionError(e);
+            } finally {
+                writing.set(false);
+            }
+        });
+        Future<?> reader = executor.submit(() -> {
+            while (writing.get()) {
+                // the keys are inserted in ascending order, so every version holds the keys 0 until its size
+                TreeView<Integer> view = shared.snapshot();
+                int expected = 0;
+                for (int key : view) assertEquals(expected++, key);
+                assertEquals(view.size(), expected);
+                if (expected > 0) assertEquals(expected - 1, view.lookup(expected - 1));
+            }
+            return null;
+        });
+        writer.get();
+        reader.get();
+        executor.shutdown();
+        assertEquals(5000, shared.snapshot().size());
+    }
+}
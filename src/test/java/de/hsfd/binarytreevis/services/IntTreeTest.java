@@ -0,0 +1,169 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.avl.AVLTree;
+import de.hsfd.binarytreevis.services.avl.IntAVLTree;
+import de.hsfd.binarytreevis.services.rbt.IntRBTree;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntTreeTest {
+
+    @Test
+    void intAVLTree_sameShapeAsAVLTree() throws TreeException {
+        intAVLTree_sameShapeAsAVLTree(false);
+        intAVLTree_sameShapeAsAVLTree(true);
+    }
+
+    private void intAVLTree_sameShapeAsAVLTree(boolean offHeap) throws TreeException {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.setRecordingMode(RecordingMode.OFF);
+        IntAVLTree intAvl = new IntAVLTree(newStore(offHeap, 4));
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(300);
+            if (avl.search(key)) {
+                avl.delete(key);
+                assertTrue(intAvl.delete(key));
+            } else {
+                avl.insert(key);
+                assertTrue(intAvl.insert(key));
+            }
+            assertSameShape(avl.getRoot(), intAvl, intAvl.root);
+        }
+        intAvl.close();
+    }
+
+    @Test
+    void intRBTree_sameShapeAsRBTree() throws TreeException {
+        intRBTree_sameShapeAsRBTree(false);
+        intRBTree_sameShapeAsRBTree(true);
+    }
+
+    private void intRBTree_sameShapeAsRBTree(boolean offHeap) throws TreeException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.setRecordingMode(RecordingMode.OFF);
+        IntRBTree intRbt = new IntRBTree(newStore(offHeap, 4));
+        for (int key : new Random(42).ints(500, 0, 10_000).distinct().toArray()) {
+            rbt.insert(key);
+            intRbt.insert(key);
+        }
+        assertSameShape(rbt.getRoot(), intRbt, intRbt.root);
+        intRbt.close();
+    }
+
+    @Test
+    void randomOperations_keepTheTreeValid() {
+        randomOperations_keepTheTreeValid(false);
+        randomOperations_keepTheTreeValid(true);
+    }
+
+    private void randomOperations_keepTheTreeValid(boolean offHeap) {
+        for (IntTree tree : new IntTree[]{new IntAVLTree(newStore(offHeap, 16)), new IntRBTree(newStore(offHeap, 16))}) {
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt(1000);
+                if (random.nextBoolean()) assertEquals(expected.add(key), tree.insert(key));
+                else assertEquals(expected.remove(key), tree.delete(key));
+                if (i % 500 == 0) assertValid(tree);
+            }
+            assertValid(tree);
+            assertEquals(expected.size(), tree.size());
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), tree.toSortedArray());
+            for (int key = 0; key < 1000; key++) assertEquals(expected.contains(key), tree.contains(key));
+            tree.close();
+        }
+    }
+
+    @Test
+    void mappedStore_reopensTheTree(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tree.bin");
+        IntRBTree tree = new IntRBTree(new MappedNodeStore(file, 4));
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) > 0) assertEquals(expected.add(key), tree.insert(key));
+            else assertEquals(expected.remove(key), tree.delete(key));
+        }
+        tree.sync();
+        String shape = tree.getTreePrinter().prettyPrint();
+        tree.close();
+
+        IntRBTree reopened = new IntRBTree(new MappedNodeStore(file));
+        assertEquals(expected.size(), reopened.size());
+        assertEquals(shape, reopened.getTreePrinter().prettyPrint());
+        // the free slots are reused after reopening
+        for (int key = 1000; key < 1100; key++) assertTrue(reopened.insert(key));
+        for (int key = 0; key < 1000; key++) assertEquals(expected.remove(key), reopened.delete(key));
+        assertValid(reopened);
+        assertArrayEquals(IntStream.range(1000, 1100).toArray(), reopened.toSortedArray());
+        reopened.close();
+
+        MappedNodeStore store = new MappedNodeStore(file);
+        assertThrows(IllegalStateException.class, () -> new IntAVLTree(store), "Another kind of tree should be rejected");
+        store.close();
+    }
+
+    private static NodeStore newStore(boolean offHeap, int capacity) {
+        return offHeap ? new OffHeapNodeStore(capacity) : new HeapNodeStore(capacity);
+    }
+
+    /**
+     * Walks both trees together and checks that they have the same keys at the same positions (and the same colors).
+     */
+    private static void assertSameShape(TreeNode<Integer> node, IntTree tree, int n) {
+        if (node == null) {
+            assertEquals(IntTree.NIL, n, "Unexpected node " + (n == IntTree.NIL ? "" : tree.key(n)));
+            return;
+        }
+        assertNotEquals(IntTree.NIL, n, "Missing node " + node.getData());
+        assertEquals(node.getData(), tree.key(n));
+        if (tree instanceof IntRBTree) assertEquals(node.getColor().name(), tree.colorOf(n), "Color of " + node.getData());
+        assertSameShape(node.getLeft(), tree, tree.left(n));
+        assertSameShape(node.getRight(), tree, tree.right(n));
+    }
+
+    /**
+     * Checks the parents, the order and the balance (AVL heights or red-black rules) of the tree.
+     */
+    private static void assertValid(IntTree tree) {
+        assertEquals(IntTree.NIL, tree.root == IntTree.NIL ? IntTree.NIL : tree.parent(tree.root));
+        if (tree instanceof IntRBTree) assertEquals("BLACK", tree.colorOf(tree.root));
+        validate(tree, tree.root, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return the height (AVL) or black height (RB) of the subtree
+     */
+    private static int validate(IntTree tree, int n, long min, long max) {
+        if (n == IntTree.NIL) return 0;
+        assertTrue(tree.key(n) > min && tree.key(n) < max, "Not a binary search tree at " + tree.key(n));
+        int l = tree.left(n), r = tree.right(n);
+        if (l != IntTree.NIL) assertEquals(n, tree.parent(l));
+        if (r != IntTree.NIL) assertEquals(n, tree.parent(r));
+        int leftHeight = validate(tree, l, min, tree.key(n));
+        int rightHeight = validate(tree, r, tree.key(n), max);
+        if (tree instanceof IntRBTree) {
+            boolean red = tree.colorOf(n).equals("RED");
+            if (red) {
+                assertNotEquals("RED", l == IntTree.NIL ? "BLACK" : tree.colorOf(l), "Red node with red child");
+                assertNotEquals("RED", r == IntTree.NIL ? "BLACK" : tree.colorOf(r), "Red node with red child");
+            }
+            assertEquals(leftHeight, rightHeight, "Different black heights at " + tree.key(n));
+            return leftHeight + (red ? 0 : 1);
+        }
+        assertTrue(Math.abs(leftHeight - rightHeight) <= 1, "Not balanced at " + tree.key(n));
+        return Math.max(leftHeight, rightHeight) + 1;
+    }
+}
@@ -0,0 +1,74 @@
+package de.hsfd.binarytreevis.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockFreeTreeTest {
+
+    @Test
+    void randomOperations_likeATreeSet() {
+        LockFreeTree<Integer> tree = new LockFreeTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(1000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), tree.insert(key));
+                case 1 -> assertEquals(expected.remove(key), tree.delete(key));
+                default -> assertEquals(expected.contains(key) ? key : null, tree.lookup(key));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), tree.keys());
+        assertEquals(expected.size(), tree.size());
+    }
+
+    @Test
+    void concurrentModificationsOfTheSameKeys_areLinearizable() throws Exception {
+        int threads = 4;
+        int keys = 64;
+        LockFreeTree<Integer> tree = new LockFreeTree<>();
+        // the number of successful inserts minus the successful deletes of every key
+        AtomicIntegerArray balance = new AtomicIntegerArray(keys);
+        for (int key = 1000; key < 1010; key++) assertTrue(tree.insert(key));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 50_000; i++) {
+                    int key = random.nextInt(keys);
+                    if (random.nextBoolean()) {
+                        if (tree.insert(key)) balance.incrementAndGet(key);
+                    } else if (tree.delete(key)) {
+                        balance.decrementAndGet(key);
+                    }
+                    // the stable keys are never deleted, so they must always be visible
+                    assertEquals(1000 + i % 10, tree.lookup(1000 + i % 10));
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int key = 0; key < keys; key++) {
+            assertTrue(balance.get(key) == 0 || balance.get(key) == 1, "Key " + key + " was inserted twice");
+            if (balance.get(key) == 1) expected.add(key);
+            assertEquals(balance.get(key) == 1, tree.search(key));
+        }
+        for (int key = 1000; key < 1010; key++) expected.add(key);
+        assertEquals(expected, tree.keys());
+        assertEquals(expected.size(), tree.size());
+    }
+}
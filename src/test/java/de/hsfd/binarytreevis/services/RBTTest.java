@@ -3,6 +3,10 @@ package de.hsfd.binarytreevis.services;
 import de.hsfd.binarytreevis.services.rbt.RBTree;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
 import static de.hsfd.binarytreevis.services.TreeNode.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,6 +57,102 @@ public class RBTTest {
         assertTrue(isBalanced(rbTree.getRoot(), blackHeight));
     }
 
+    @Test
+    public void testFromSortedMaintainsRedBlackProperties() throws TreeException {
+        for (int n = 1; n <= 130; n++) {
+            Integer[] keys = new Integer[n];
+            for (int i = 0; i < n; i++) keys[i] = i;
+            RBTree<Integer> rbTree = new RBTree<>();
+            rbTree.fromSorted(keys);
+
+            assertEquals(COLOR.BLACK, rbTree.getRoot().getColor());
+            checkRedBlackProperties(rbTree.getRoot());
+            assertTrue(isBalanced(rbTree.getRoot(), calculateBlackHeight(rbTree.getRoot())),
+                       "The black height of the tree of " + n + " keys is not consistent");
+        }
+
+        // the tree can be modified as usual afterwards
+        RBTree<Integer> rbTree = new RBTree<>();
+        rbTree.fromSorted(new Integer[]{1, 2, 3, 4, 5, 6});
+        rbTree.insert(7);
+        rbTree.delete(1);
+        checkRedBlackProperties(rbTree.getRoot());
+        assertTrue(isBalanced(rbTree.getRoot(), calculateBlackHeight(rbTree.getRoot())));
+    }
+
+    @Test
+    public void testRandomDeletesMaintainRedBlackPropertiesWithoutNullNodes() throws TreeException {
+        RBTree<Integer> rbTree = new RBTree<>();
+        rbTree.setRecordingMode(TreeService.RecordingMode.OFF);
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            int key = random.nextInt(300);
+            if (rbTree.search(key)) rbTree.delete(key);
+            else rbTree.insert(key);
+
+            TreeNode<Integer> root = rbTree.getRoot();
+            if (root == null) continue;
+            assertEquals(COLOR.BLACK, root.getColor());
+            assertNull(root.getParent());
+            checkRedBlackProperties(root);
+            assertTrue(isBalanced(root, calculateBlackHeight(root)), "Unbalanced after the operation on " + key);
+            assertNoNullNodes(root);
+        }
+    }
+
+    @Test
+    public void testTopDownMaintainsRedBlackPropertiesLikeATreeSet() throws TreeException, IllegalAccessException {
+        RBTree<Integer> rbTree = new RBTree<>();
+        rbTree.setBalancing(RBTree.Balancing.TOP_DOWN);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            // switches to the bottom-up mode now and then, both modes have to work on the tree of the other one
+            if (i % 1000 == 500) rbTree.setBalancing(RBTree.Balancing.BOTTOM_UP);
+            if (i % 1000 == 700) rbTree.setBalancing(RBTree.Balancing.TOP_DOWN);
+            int key = random.nextInt(400);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key) ? TreeService.Outcome.INSERTED : TreeService.Outcome.DUPLICATE, rbTree.tryInsert(key));
+            } else {
+                assertEquals(expected.remove(key) ? TreeService.Outcome.DELETED : TreeService.Outcome.NOT_FOUND, rbTree.tryDelete(key));
+            }
+
+            TreeNode<Integer> root = rbTree.getRoot();
+            assertEquals(expected.size(), rbTree.size);
+            if (root == null) continue;
+            assertEquals(COLOR.BLACK, root.getColor());
+            assertNull(root.getParent());
+            checkRedBlackProperties(root);
+            assertTrue(isBalanced(root, calculateBlackHeight(root)), "Unbalanced after the operation on " + key);
+            assertTrue(checkRBTProperties(root));
+            assertTrue(BSTTest.isBinarySearchTree(root));
+            assertNoNullNodes(root);
+            assertEquals(expected.size(), root.size(), "The cached subtree sizes should be updated by the rotations");
+        }
+        assertEquals(List.copyOf(expected), rbTree.stream().toList());
+        assertEquals(expected, new TreeSet<>(rbTree.getNodes()));
+
+        assertThrows(TreeException.class, () -> rbTree.insert(expected.first()));
+        assertThrows(TreeException.class, () -> rbTree.delete(-1));
+
+        // the top-down delete removes the stored key from the keys, not the equal one by the comparator
+        RBTree<String> strings = new RBTree<>(String.CASE_INSENSITIVE_ORDER);
+        strings.setBalancing(RBTree.Balancing.TOP_DOWN);
+        for (String key : new String[]{"delta", "Alpha", "echo", "Charlie"}) strings.main_insert(key);
+        strings.delete("ALPHA");
+        strings.delete("DELTA");
+        assertEquals(List.of("echo", "Charlie"), List.copyOf(strings.getNodes()));
+    }
+
+    private void assertNoNullNodes(TreeNode<Integer> node) {
+        if (node == null) return;
+        assertNotNull(node.getData(), "A null node is left in the tree");
+        if (node.getLeft() != null) assertSame(node, node.getLeft().getParent());
+        if (node.getRight() != null) assertSame(node, node.getRight().getParent());
+        assertNoNullNodes(node.getLeft());
+        assertNoNullNodes(node.getRight());
+    }
+
     private void checkRedBlackProperties(TreeNode<Integer> node) {
         if (node == null || node.getData() == null) {
             return;
@@ -0,0 +1,120 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.avl.AVLTree;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeArchiveTest {
+
+    @Test
+    void writeAndRead_restoresTheTreeAndTheHistory() throws TreeException, IOException, IllegalAccessException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.setRecordingMode(RecordingMode.FULL);
+        List<PersistentNode<Integer>> versions = new ArrayList<>();
+        versions.add(rbt.freeze()); // the empty tree
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            int key = random.nextInt(100);
+            if (rbt.search(key)) rbt.delete(key);
+            else rbt.main_insert(key);
+            versions.add(rbt.freeze());
+        }
+
+        byte[] archive = write(rbt, versions);
+        RBTree<Integer> restored = new RBTree<>();
+        List<PersistentNode<Integer>> restoredVersions = read(archive, restored);
+
+        assertEquals(rbt, restored);
+        assertEquals(List.copyOf(rbt.getNodes()), List.copyOf(restored.getNodes()));
+        assertEquals(versions.size(), restoredVersions.size());
+        assertNull(restoredVersions.getFirst());
+        for (int i = 0; i < versions.size(); i++) {
+            assertTrue(TreeService.equalTrees(versions.get(i), restoredVersions.get(i)), "Version " + i + " differs");
+        }
+        assertSame(restoredVersions.getLast(), restored.freeze(), "The restored tree should share the last version");
+
+        assertEquals(rbt.getRecordList().size(), restored.getRecordList().size());
+        for (int i = 0; i < rbt.getRecordList().size(); i++) {
+            List<Object> expected = rbt.getRecordList().get(i).parts();
+            List<Object> actual = restored.getRecordList().get(i).parts();
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); j++) {
+                if (expected.get(j) instanceof TreeSnapshot snapshot) {
+                    TreeSnapshot restoredSnapshot = (TreeSnapshot) actual.get(j);
+                    assertEquals(snapshot.fileName(), restoredSnapshot.fileName());
+                    assertTrue(TreeService.equalTrees(snapshot.root(), restoredSnapshot.root()));
+                } else assertEquals(expected.get(j).toString(), actual.get(j).toString());
+            }
+        }
+
+        // the restored tree can be modified further
+        restored.main_insert(1000);
+        assertTrue(BSTTest.isBinarySearchTree(restored.getRoot()));
+        assertTrue(restored.search(1000));
+    }
+
+    @Test
+    void read_rejectsAnotherKindOfTree() throws TreeException, IOException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.main_insert(1);
+        byte[] archive = write(rbt, List.of());
+
+        assertThrows(IOException.class, () -> read(archive, new AVLTree<>()));
+        assertThrows(IOException.class, () -> read(new byte[]{1, 2, 3}, new RBTree<>()));
+    }
+
+    @Test
+    void read_rejectsADamagedArchive() throws IOException {
+        // a text before any record
+        ByteArrayOutputStream archive = header(RBTree.class);
+        archive.write(new byte[]{4, 1, 'a', 0});
+        IOException e = assertThrows(IOException.class, () -> read(archive.toByteArray(), new RBTree<>()));
+        assertTrue(e.getMessage().contains("damaged"), e.getMessage());
+
+        // a negative length of a text
+        ByteArrayOutputStream negative = header(RBTree.class);
+        negative.write(new byte[]{3, 4, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        e = assertThrows(IOException.class, () -> read(negative.toByteArray(), new RBTree<>()));
+        assertTrue(e.getMessage().contains("damaged"), e.getMessage());
+
+        // a huge length of a text, the archive ends long before
+        ByteArrayOutputStream huge = header(RBTree.class);
+        huge.write(new byte[]{3, 4, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a'});
+        assertThrows(EOFException.class, () -> read(huge.toByteArray(), new RBTree<>()));
+    }
+
+    private static ByteArrayOutputStream header(Class<?> type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(0x42545641);
+        data.writeInt(1);
+        byte[] name = type.getName().getBytes(StandardCharsets.UTF_8);
+        data.writeByte(name.length);
+        data.write(name);
+        return out;
+    }
+
+    private static byte[] write(TreeService<Integer> tree, List<PersistentNode<Integer>> versions) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TreeArchive.write(tree, versions, KeyCodec.INTEGER, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static List<PersistentNode<Integer>> read(byte[] archive, TreeService<Integer> tree) throws IOException {
+        return TreeArchive.read(Channels.newChannel(new ByteArrayInputStream(archive)), KeyCodec.INTEGER, tree);
+    }
+}
@@ -0,0 +1,159 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.avl.AVLTree;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static de.hsfd.binarytreevis.services.BSTTest.isBinarySearchTree;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeLogTest {
+
+    @Test
+    void recover_replaysTheLogAndTheCheckpoint(@TempDir Path dir) throws IOException, TreeException, IllegalAccessException {
+        Path file = dir.resolve("tree.log");
+        TreeSet<Integer> expected = new TreeSet<>();
+        try (TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER, 8, 500)) {
+            RBTree<Integer> rbt = newTree(log);
+            Random random = new Random(42);
+            for (int i = 0; i < 2000; i++) {
+                int key = random.nextInt(300);
+                if (expected.add(key)) rbt.main_insert(key);
+                else {
+                    expected.remove(key);
+                    rbt.delete(key);
+                }
+            }
+            rbt.insertAll(List.of(1000, 1001));
+            rbt.bulkLoad(List.of(2000, 1000));
+            expected.addAll(List.of(1000, 1001, 2000));
+            assertTrue(Files.exists(dir.resolve("tree.log.checkpoint")), "A checkpoint should have been written");
+            assertTrue(log.size() < 500 * 13, "The log should be emptied by the checkpoints");
+        }
+
+        assertKeys(expected, recover(file));
+    }
+
+    @Test
+    void recover_withoutCommit_keepsTheCommittedGroups(@TempDir Path dir) throws IOException, TreeException, IllegalAccessException {
+        Path file = dir.resolve("tree.log");
+        TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER, 4, 1000);
+        RBTree<Integer> rbt = newTree(log);
+        for (int key = 0; key < 10; key++) rbt.main_insert(key);
+        rbt.fromSorted(new Integer[]{100, 200});
+        rbt.delete(100);
+        // the program crashes: the last group is not committed, and the last record is written half
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 4, 1, 2}));
+        }
+
+        AVLTree<Integer> recovered = recover(file);
+        // the groups of 4 operations (10 inserts, clear, insert 100) are committed, insert 200 and delete 100 are lost
+        assertKeys(new TreeSet<>(List.of(100)), recovered);
+        assertEquals(11 * 13 + 9, Files.size(file), "The incomplete record should be cut off");
+        log.close();
+    }
+
+    @Test
+    void bulkLoad_checksTheCheckpointAfterAllRecords(@TempDir Path dir) throws IOException, TreeException, IllegalAccessException {
+        Path file = dir.resolve("tree.log");
+        try (TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER, 1, 4)) {
+            RBTree<Integer> rbt = newTree(log);
+            rbt.bulkLoad(List.of(5, 3, 8, 1, 9, 0, 2, 7, 4, 6));
+            assertEquals(0, log.size(), "The checkpoint should be written once after the 10 records");
+            rbt.main_insert(10);
+            assertEquals(13, log.size());
+        }
+        TreeSet<Integer> expected = new TreeSet<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        assertKeys(expected, recover(file));
+    }
+
+    @Test
+    void recover_readsALogLargerThanItsBufferAndRejectsADamagedLength(@TempDir Path dir) throws IOException, TreeException, IllegalAccessException {
+        Path file = dir.resolve("tree.log");
+        TreeSet<Integer> expected = new TreeSet<>();
+        try (TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER, 1024, Integer.MAX_VALUE)) {
+            RBTree<Integer> rbt = newTree(log);
+            for (int key = 0; key < 10_000; key++) {
+                rbt.main_insert(key);
+                expected.add(key);
+            }
+        }
+        long size = Files.size(file);
+        assertTrue(size > 64 * 1024, "The log should not fit into the buffer of the recovery");
+        // a torn record which claims a key of almost 2 GiB
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(9).put((byte) 0).putInt(Integer.MAX_VALUE - 8).flip());
+        }
+
+        assertKeys(expected, recover(file));
+        assertEquals(size, Files.size(file), "The damaged record should be cut off");
+    }
+
+    @Test
+    void checkpoint_isNotWrittenBySingleModifications(@TempDir Path dir) throws IOException, TreeException, IllegalAccessException {
+        Path file = dir.resolve("tree.log");
+        try (TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER, 1, 4)) {
+            RBTree<Integer> rbt = newTree(log);
+            for (int key = 0; key < 10; key++) rbt.main_insert(key);
+            rbt.delete(0);
+            assertFalse(Files.exists(dir.resolve("tree.log.checkpoint")));
+            assertEquals(11 * 13, log.size());
+
+            assertTrue(rbt.checkpointIfDue());
+            assertEquals(0, log.size());
+            assertFalse(rbt.checkpointIfDue(), "The log is empty after the checkpoint");
+        }
+        assertKeys(new TreeSet<>(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9)), recover(file));
+    }
+
+    @Test
+    void restore_logsTheRestoredKeys(@TempDir Path dir) throws IOException, TreeException, IllegalAccessException {
+        RBTree<Integer> archived = new RBTree<>();
+        archived.setRecordingMode(RecordingMode.OFF);
+        for (int key : new int[]{4, 2, 6, 1}) archived.main_insert(key);
+
+        Path file = dir.resolve("tree.log");
+        try (TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER)) {
+            TreeService<Integer> rbt = newTree(log);
+            for (int key = 10; key < 20; key++) rbt.main_insert(key);
+            rbt.restore(archived.freeze(), List.copyOf(archived.getNodes()), List.of());
+            rbt.main_insert(3);
+        }
+        assertKeys(new TreeSet<>(List.of(1, 2, 3, 4, 6)), recover(file));
+    }
+
+    private static RBTree<Integer> newTree(TreeLog<Integer> log) throws IOException, TreeException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.setRecordingMode(RecordingMode.OFF);
+        log.recover(rbt);
+        return rbt;
+    }
+
+    private static AVLTree<Integer> recover(Path file) throws IOException, TreeException {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.setRecordingMode(RecordingMode.OFF);
+        try (TreeLog<Integer> log = new TreeLog<>(file, KeyCodec.INTEGER)) {
+            log.recover(avl);
+        }
+        return avl;
+    }
+
+    private static void assertKeys(TreeSet<Integer> expected, TreeService<Integer> tree) throws IllegalAccessException {
+        assertTrue(isBinarySearchTree(tree.getRoot()));
+        assertEquals(expected, new TreeSet<>(tree.getNodes()));
+        assertEquals(expected.size(), tree.getNodes().size());
+    }
+}
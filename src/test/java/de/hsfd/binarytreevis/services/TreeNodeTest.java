@@ -2,8 +2,7 @@ package de.hsfd.binarytreevis.services;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 class TreeNodeTest {
     @Test
@@ -86,4 +85,33 @@ class TreeNodeTest {
         
         
     }
+
+    @Test
+    void copyWithSubtreeOf_degeneratedTree() {
+        // a BST of sorted keys is a list, which overflowed the stack with the recursive copy
+        int n = 200_000;
+        TreeNode<Integer> root = new TreeNode<>(0);
+        root.setHeight(n);
+        TreeNode<Integer> last = root;
+        for (int i = 1; i < n; i++) {
+            TreeNode<Integer> next = new TreeNode<>(i, i % 2 == 0 ? TreeNode.COLOR.RED : TreeNode.COLOR.BLACK);
+            next.setHeight(n - i);
+            last.setRight(next);
+            last = next;
+        }
+        last.setLeft(new TreeNode<>(-1));
+
+        TreeNode<Integer> copy = root.copyWithSubtreeOf(root);
+
+        assertTrue(TreeService.equalTrees(root, copy));
+        TreeNode<Integer> original = root;
+        for (TreeNode<Integer> copied = copy; copied.getRight() != null; copied = copied.getRight()) {
+            assertNotSame(original, copied);
+            assertEquals(original.getHeight(), copied.getHeight(), "The height should be copied");
+            assertSame(copied, copied.getRight().getParent());
+            original = original.getRight();
+        }
+        last.getLeft().setData(-2);
+        assertFalse(TreeService.equalTrees(root, copy));
+    }
 }
@@ -0,0 +1,515 @@
+package de.hsfd.binarytreevis.services;
+
+import de.hsfd.binarytreevis.TreePrinter;
+import de.hsfd.binarytreevis.services.TreeService.RecordingMode;
+import de.hsfd.binarytreevis.services.avl.AVLTree;
+import de.hsfd.binarytreevis.services.bst.BSTree;
+import de.hsfd.binarytreevis.services.rbt.RBTree;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static de.hsfd.binarytreevis.services.BSTTest.isBinarySearchTree;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeServiceTest {
+
+    /**
+     * Creates a kind of tree, so that a parameterized test can create several trees of the same kind.
+     */
+    @FunctionalInterface
+    interface TreeFactory {
+        <E extends Comparable<E>> TreeService<E> newTree(Comparator<E> comparator);
+
+        default <E extends Comparable<E>> TreeService<E> newTree( ) {
+            return newTree(null);
+        }
+    }
+
+    /**
+     * The kinds of trees for the {@link ParameterizedTest}s.
+     */
+    static Stream<Named<TreeFactory>> trees( ) {
+        return Stream.of(Named.of("BST", BSTree::new), Named.of("AVL", AVLTree::new), Named.of("RB", RBTree::new));
+    }
+
+    @Test
+    void recordingOff_noRecordButSameTree() throws TreeException, IllegalAccessException {
+        RBTree<Integer> recorded = new RBTree<>();
+        RBTree<Integer> notRecorded = new RBTree<>();
+        notRecorded.setRecordingMode(RecordingMode.OFF);
+        for (int i : new int[]{41, 38, 31, 12, 19, 8, 50, 45}) {
+            recorded.main_insert(i);
+            notRecorded.main_insert(i);
+        }
+        recorded.delete(38);
+        notRecorded.delete(38);
+
+        assertEquals(recorded, notRecorded, "The recording mode should not change the algorithm");
+        assertTrue(isBinarySearchTree(notRecorded.getRoot()));
+        assertTrue(notRecorded.getRecordList().isEmpty(), "Nothing should be recorded if the recording is OFF");
+        assertEquals(9, recorded.getRecordList().size());
+    }
+
+    @Test
+    void recordingTextOnly_noImages() throws TreeException {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.setRecordingMode(RecordingMode.TEXT_ONLY);
+        avl.main_insert(10);
+        avl.main_insert(20);
+        avl.main_insert(30); // left rotation
+
+        String record = avl.getRecordList().getLast().render();
+        assertTrue(record.contains("Left Rotation"));
+        assertFalse(record.contains("<svg"), "TEXT_ONLY should not render the tree");
+    }
+
+    @Test
+    void recordingFull_rendersKeysWhichAreNotIntegers() throws TreeException {
+        RBTree<String> rbt = new RBTree<>(String.CASE_INSENSITIVE_ORDER);
+        for (String key : new String[]{"delta", "Alpha", "say \"hi\""}) rbt.main_insert(key);
+
+        String record = rbt.getRecordList().getLast().render();
+        assertTrue(record.contains("<svg"), "The tree should be rendered");
+        assertTrue(record.contains("Alpha"));
+        assertEquals("delta", rbt.getTreePrinter().toString());
+    }
+
+    @Test
+    void snapshot_keepsShape() throws TreeException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.setRecordingMode(RecordingMode.OFF);
+        for (int i : new int[]{50, 30, 70, 20, 40, 60, 80, 10, 45, 65}) rbt.insert(i);
+
+        RBTree<Integer> expected = new RBTree<>(rbt);
+        TreeSnapshot snapshot = TreeSnapshot.of(rbt.getRoot(), "test");
+        rbt.delete(50); // the snapshot should not be affected by later modifications
+
+        assertEquals(10, snapshot.size());
+        assertSameShape(expected.getRoot(), snapshot.toTreePrinter());
+    }
+
+    @Test
+    void freeze_sharesUnchangedSubtrees() throws TreeException {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.setRecordingMode(RecordingMode.OFF);
+        for (int i = 0; i < 1023; i++) avl.insert(i);
+
+        PersistentNode<Integer> before = avl.freeze();
+        assertSame(before, avl.freeze(), "An unchanged tree should not be copied again");
+        AVLTree<Integer> expected = new AVLTree<>(avl);
+
+        avl.insert(2000);
+        PersistentNode<Integer> after = avl.freeze();
+        avl.delete(500);
+        PersistentNode<Integer> afterDelete = avl.freeze();
+
+        assertTrue(TreeService.equalTrees(expected.getRoot(), before), "The old version should not be changed");
+        assertTrue(TreeService.equalTrees(avl.getRoot(), afterDelete));
+        assertEquals(1024, after.size());
+        assertEquals(1023, afterDelete.size());
+        // only the path to the modified node is copied
+        assertTrue(countNewNodes(before, after) <= 2 * after.getHeight(), "Insert copied too many nodes");
+        assertTrue(countNewNodes(after, afterDelete) <= 2 * afterDelete.getHeight(), "Delete copied too many nodes");
+    }
+
+    @Test
+    void snapshot_isNotAffectedByLaterModifications() throws TreeException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.setRecordingMode(RecordingMode.OFF);
+        for (int i = 0; i < 100; i++) rbt.main_insert(i);
+
+        TreeView<Integer> first = rbt.snapshot();
+        assertSame(first, rbt.snapshot(), "An unchanged tree should return the same snapshot");
+        rbt.main_insert(100);
+        rbt.delete(0);
+        TreeView<Integer> second = rbt.snapshot();
+        rbt.insertAll(List.of(200, 201));
+        rbt.bulkLoad(List.of(300));
+
+        assertEquals(100, first.size());
+        assertTrue(first.search(0));
+        assertFalse(first.search(100));
+        List<Integer> keys = new ArrayList<>();
+        first.forEach(keys::add);
+        for (int i = 0; i < 100; i++) assertEquals(i, keys.get(i));
+        assertEquals(100, keys.size());
+
+        assertEquals(100, second.size());
+        assertNull(second.lookup(0));
+        assertEquals(100, second.lookup(100));
+        assertFalse(second.search(200));
+
+        TreeView<Integer> last = rbt.snapshot();
+        assertEquals(rbt.size, last.size());
+        assertTrue(TreeService.equalTrees(rbt.getRoot(), last.getRoot()));
+        assertTrue(last.search(201) && last.search(300));
+        assertSameShape(rbt.getRoot(), last.getTreePrinter());
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    void orderStatistics_likeASortedList(TreeFactory kind) throws TreeException {
+        TreeService<Integer> tree = notRecorded(kind, null);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            toggle(tree, expected, random.nextInt(500));
+            if (i % 50 == 0) assertOrderStatistics(expected, tree, tree.snapshot());
+        }
+        tree.insertAll(List.of(1000, 1001));
+        tree.bulkLoad(List.of(-1, 2000));
+        expected.addAll(List.of(1000, 1001, -1, 2000));
+        assertOrderStatistics(expected, tree, tree.snapshot());
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(expected.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(-1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    void navigationAndRange_likeATreeSet(TreeFactory kind) throws TreeException {
+        TreeService<Integer> tree = notRecorded(kind, null);
+        assertThrows(NoSuchElementException.class, tree::min);
+        assertFalse(tree.iterator().hasNext());
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 600; i++) {
+            toggle(tree, expected, random.nextInt(400) * 2); // only even keys, so that the odd ones are missing
+        }
+
+        assertEquals(expected.first(), tree.min());
+        assertEquals(expected.last(), tree.max());
+        for (int key = -3; key < 805; key++) {
+            assertEquals(expected.floor(key), tree.floor(key));
+            assertEquals(expected.ceiling(key), tree.ceiling(key));
+            assertEquals(expected.higher(key), tree.higher(key));
+            assertEquals(expected.lower(key), tree.lower(key));
+        }
+        List<Integer> all = new ArrayList<>();
+        tree.forEach(all::add);
+        assertEquals(new ArrayList<>(expected), all);
+        for (int lo = -3; lo < 805; lo += 37) {
+            for (int hi = lo - 5; hi < lo + 120; hi += 31) {
+                List<Integer> range = new ArrayList<>();
+                tree.range(lo, hi).forEachRemaining(range::add);
+                List<Integer> expectedRange = lo > hi ? List.of() : new ArrayList<>(expected.subSet(lo, true, hi, true));
+                assertEquals(expectedRange, range, "range(" + lo + ", " + hi + ")");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    void spliterator_splitsIntoBalancedSortedParts(TreeFactory kind) throws TreeException {
+        TreeService<Integer> tree = notRecorded(kind, null);
+        assertEquals(0, tree.stream().count());
+        // the BST degenerates to a list, the parts have to be balanced anyway
+        for (int i = 0; i < 1000; i++) tree.main_insert(i);
+        for (int i = 0; i < 1000; i += 3) tree.delete(i);
+        List<Integer> expected = new ArrayList<>();
+        tree.forEach(expected::add);
+
+        Spliterator<Integer> second = tree.spliterator();
+        assertTrue(second.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED
+                                                     | Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertNull(second.getComparator());
+        Spliterator<Integer> first = second.trySplit();
+        assertEquals(expected.size() / 2, first.estimateSize());
+        assertEquals(expected.size() - expected.size() / 2, second.estimateSize());
+        List<Integer> keys = new ArrayList<>();
+        assertTrue(first.tryAdvance(keys::add));
+        first.forEachRemaining(keys::add);
+        second.forEachRemaining(keys::add);
+        assertEquals(expected, keys);
+
+        assertEquals(expected, tree.stream().parallel().toList());
+        assertEquals(expected.stream().mapToLong(i -> i).sum(), tree.stream().parallel().mapToLong(i -> i).sum());
+        assertEquals(expected.stream().filter(i -> i % 7 == 0).count(), tree.stream().parallel().filter(i -> i % 7 == 0).count());
+    }
+
+    private static void assertOrderStatistics(TreeSet<Integer> expected, TreeService<Integer> tree, TreeView<Integer> view) {
+        List<Integer> sorted = new ArrayList<>(expected);
+        assertEquals(sorted.size(), tree.getRoot() == null ? 0 : tree.getRoot().size());
+        for (int k = 0; k < sorted.size(); k++) {
+            assertEquals(sorted.get(k), tree.select(k));
+            assertEquals(sorted.get(k), view.select(k));
+        }
+        for (int key = -2; key < 505; key += 3) {
+            assertEquals(expected.headSet(key).size(), tree.rank(key));
+            assertEquals(expected.headSet(key).size(), view.rank(key));
+            int expectedInRange = expected.subSet(key, true, key + 40, true).size();
+            assertEquals(expectedInRange, tree.countInRange(key, key + 40));
+            assertEquals(expectedInRange, view.countInRange(key, key + 40));
+        }
+        assertEquals(0, tree.countInRange(10, 5));
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    void comparator_ordersTheTreeAndIsCalledOncePerNode(TreeFactory kind) throws TreeException {
+        TreeService<String> tree = notRecorded(kind, String.CASE_INSENSITIVE_ORDER);
+        for (String key : new String[]{"delta", "Alpha", "echo", "Charlie", "bravo", "Foxtrot"}) tree.main_insert(key);
+
+        assertEquals(List.of("Alpha", "bravo", "Charlie", "delta", "echo", "Foxtrot"), tree.stream().toList());
+        assertThrows(TreeException.class, () -> tree.main_insert("ALPHA"), "ALPHA is equal to Alpha");
+        assertEquals("Charlie", tree.lookup("CHARLIE"));
+        assertEquals(2, tree.rank("charlie"));
+        assertEquals(3, tree.countInRange("b", "E"));
+        assertEquals("delta", tree.snapshot().lookup("DELTA"));
+        assertSame(String.CASE_INSENSITIVE_ORDER, tree.spliterator().getComparator());
+
+        tree.delete("ECHO");
+        assertEquals(List.of("Alpha", "bravo", "Charlie", "delta", "Foxtrot"), tree.stream().toList());
+        assertEquals(List.of("delta", "Alpha", "Charlie", "bravo", "Foxtrot"), List.copyOf(tree.getNodes()),
+                     "The stored key echo should be removed from the keys");
+        assertEquals(TreeService.Outcome.DELETED, tree.tryDelete("CHARLIE"));
+        assertEquals(2, tree.deleteAll(List.of("ALPHA", "FOXTROT")));
+        assertEquals(List.of("delta", "bravo"), List.copyOf(tree.getNodes()));
+        TreeService<String> copy = new BSTree<>(tree);
+        assertSame(tree.comparator(), copy.comparator());
+
+        int[] compares = {0};
+        TreeService<Integer> counted = notRecorded(kind, countingComparator(compares));
+        for (int i : shuffledKeys(1000)) counted.main_insert(i);
+        for (int i = 0; i < 1000; i++) {
+            int depth = depthOf(counted, i);
+            compares[0] = 0;
+            assertEquals(i, counted.lookup(i));
+            assertEquals(depth, compares[0], "lookup should compare once per visited node");
+            compares[0] = 0;
+            assertTrue(counted.search(i));
+            assertEquals(depth, compares[0], "search should compare once per visited node");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    void insertIfAbsent_likeMainInsertButFalseForDuplicates(TreeFactory kind) throws TreeException, IllegalAccessException {
+        TreeService<Integer> inserted = kind.newTree();
+        TreeService<Integer> absent = kind.newTree();
+        for (int i : new int[]{41, 38, 31, 12, 19, 8, 50, 45}) {
+            inserted.main_insert(i);
+            assertTrue(absent.insertIfAbsent(i));
+        }
+        assertEquals(inserted, absent, "insertIfAbsent should build the same tree as main_insert");
+        assertEquals(inserted.getRecordList().size(), absent.getRecordList().size());
+
+        assertFalse(absent.insertIfAbsent(19));
+        assertEquals(8, absent.size);
+        assertEquals(inserted.getRecordList().size(), absent.getRecordList().size(), "A duplicate should not be recorded");
+        assertThrows(TreeException.class, () -> absent.main_insert(19));
+
+        int[] compares = {0};
+        TreeService<Integer> counted = notRecorded(kind, countingComparator(compares));
+        Random random = new Random(23);
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(1000);
+            int depth = depthOf(counted, key);
+            boolean present = counted.search(key);
+            compares[0] = 0;
+            assertEquals(!present, counted.insertIfAbsent(key));
+            assertEquals(depth, compares[0], "insertIfAbsent should descend only once");
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("trees")
+    void tryInsertAndTryDelete_statusInsteadOfException(TreeFactory kind) throws TreeException {
+        TreeService<Integer> tree = kind.newTree();
+        assertEquals(TreeService.Outcome.NOT_FOUND, tree.tryDelete(1), "The tree is empty");
+        for (int i : new int[]{41, 38, 31, 12, 19, 8}) assertEquals(TreeService.Outcome.INSERTED, tree.tryInsert(i));
+        int records = tree.getRecordList().size();
+
+        assertEquals(TreeService.Outcome.DUPLICATE, tree.tryInsert(31));
+        assertEquals(TreeService.Outcome.NOT_FOUND, tree.tryDelete(30));
+        assertEquals(records, tree.getRecordList().size(), "Nothing should be recorded");
+        assertEquals(TreeService.Outcome.DELETED, tree.tryDelete(31));
+        assertFalse(tree.search(31));
+        assertEquals(5, tree.size);
+
+        TreeException duplicate = assertThrows(TreeException.class, () -> tree.main_insert(12));
+        TreeException missing = assertThrows(TreeException.class, () -> tree.delete(31));
+        assertEquals(0, duplicate.getStackTrace().length, "The expected outcomes should be thrown without a stack trace");
+        assertEquals(0, missing.getStackTrace().length);
+        assertEquals("The value 31 could not be found in the tree.", missing.getMessage());
+    }
+
+    @Test
+    void bulkLoad_mergesWithTheTreeWithoutDuplicates() throws TreeException, IllegalAccessException {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.setRecordingMode(RecordingMode.TEXT_ONLY);
+        avl.main_insert(5);
+        avl.main_insert(1);
+        avl.bulkLoad(List.of(9, 3, 5, 7, 3, 0));
+
+        assertTrue(isBinarySearchTree(avl.getRoot()));
+        assertEquals(List.of(5, 1, 0, 3, 7, 9), List.copyOf(avl.getNodes()));
+        assertEquals(3, avl.getRecordList().size(), "The bulk load should be recorded as one modification");
+        assertTrue(avl.getRecordList().getLast().render().contains("Load 4 keys"));
+
+        assertThrows(TreeException.class, () -> avl.fromSorted(new Integer[]{1, 3, 3}));
+        assertThrows(TreeException.class, () -> avl.fromSorted(new Integer[]{2, 1}));
+        avl.fromSorted(new Integer[]{});
+        assertNull(avl.getRoot());
+        assertTrue(avl.getNodes().isEmpty());
+    }
+
+    @Test
+    void insertAllAndDeleteAll_oneStatusUpdateAndHistoryEntryPerBatch() throws TreeException {
+        RBTree<Integer> batched = new RBTree<>();
+        RBTree<Integer> single = new RBTree<>();
+        batched.setRecordingMode(RecordingMode.TEXT_ONLY);
+        ArrayList<String> statusUpdates = new ArrayList<>();
+        batched.setStatus(statusUpdates::add);
+        statusUpdates.clear();
+
+        assertEquals(8, batched.insertAll(List.of(41, 38, 31, 12, 19, 8, 50, 45, 41)), "The duplicate should be skipped");
+        assertEquals(2, batched.deleteAll(List.of(38, 100, 8)), "The missing key should be skipped");
+        assertEquals(0, batched.deleteAll(List.of(100)));
+        for (int i : new int[]{41, 38, 31, 12, 19, 8, 50, 45}) single.main_insert(i);
+        single.delete(38);
+        single.delete(8);
+
+        assertEquals(single, batched, "A batch should build the same tree as single modifications");
+        assertEquals(List.of("[41, 31, 12, 19, 50, 45]"), statusUpdates.subList(1, 2));
+        assertEquals(2, statusUpdates.size());
+        assertEquals(2, batched.getRecordList().size());
+        String insertRecord = batched.getRecordList().getFirst().render();
+        assertTrue(insertRecord.contains("Insert 41") && insertRecord.contains("Insert 45"));
+        assertTrue(batched.getRecordList().getLast().render().contains("Delete 8"));
+    }
+
+    @Test
+    void status_showsOnlyTheLastInsertedKeys() throws TreeException {
+        RBTree<Integer> rbt = new RBTree<>();
+        rbt.setRecordingMode(RecordingMode.TEXT_ONLY);
+        ArrayList<String> statusUpdates = new ArrayList<>();
+        rbt.setStatus(statusUpdates::add);
+        for (int i = 0; i < TreeService.STATUS_LIMIT + 10; i++) rbt.main_insert(i);
+        rbt.delete(105);
+
+        assertEquals("[0]", statusUpdates.get(1));
+        List<Integer> shown = new ArrayList<>();
+        for (int i = 9; i < TreeService.STATUS_LIMIT + 10; i++) if (i != 105) shown.add(i);
+        String expected = shown.toString().replace("[", "[... 9 more, ");
+        assertEquals(expected, statusUpdates.getLast());
+        assertEquals(109, rbt.getNodes().size());
+        assertEquals(109, rbt.lastInserted());
+    }
+
+    @Test
+    void recordList_onlyContainsTheRecordOfEachModification() throws TreeException {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.setRecordingMode(RecordingMode.TEXT_ONLY);
+        avl.main_insert(10);
+        avl.main_insert(20);
+        avl.delete(10);
+
+        assertEquals(3, avl.getRecordList().size());
+        assertTrue(avl.getRecordList().get(0).render().contains("Insert 10"));
+        assertFalse(avl.getRecordList().get(1).render().contains("Insert 10"));
+        assertTrue(avl.getRecordList().get(1).render().contains("Insert 20"));
+        assertTrue(avl.getRecordList().get(2).render().startsWith("TreeService.delete:\n- Delete 10"));
+        assertEquals(avl.getRecordList().get(0).render() + avl.getRecordList().get(1).render(), avl.renderHistory(1));
+    }
+
+    @Test
+    void addRecord_prefixWithStepOrCaller() {
+        AVLTree<Integer> avl = new AVLTree<>();
+        avl.addRecord("TreeServiceTest.step", "explicit\n");
+        avl.addRecord("from the caller\n");
+        avl.acceptRecordInHistory();
+
+        String record = avl.getRecordList().getLast().render();
+        assertEquals("TreeServiceTest.step:\nexplicit\n\nTreeServiceTest.addRecord_prefixWithStepOrCaller:\nfrom the caller\n\n", record);
+    }
+
+    private static <E extends Comparable<E>> TreeService<E> notRecorded(TreeFactory kind, Comparator<E> comparator) {
+        TreeService<E> tree = kind.newTree(comparator);
+        tree.setRecordingMode(RecordingMode.OFF);
+        return tree;
+    }
+
+    /**
+     * @return the natural order, which counts its calls in compares[0]
+     */
+    private static Comparator<Integer> countingComparator(int[] compares) {
+        return (a, b) -> {
+            compares[0]++;
+            return a.compareTo(b);
+        };
+    }
+
+    /**
+     * Inserts the key if it is not in the tree, otherwise deletes it.
+     */
+    private static void toggle(TreeService<Integer> tree, TreeSet<Integer> expected, int key) throws TreeException {
+        if (expected.remove(key)) tree.delete(key);
+        else if (expected.add(key)) tree.main_insert(key);
+    }
+
+    /**
+     * @return the amount of nodes on the path to the key, or to the parent of a missing key
+     */
+    private static int depthOf(TreeService<Integer> tree, int key) {
+        int depth = 0;
+        for (TreeNode<Integer> n = tree.getRoot(); n != null; n = key < n.getData() ? n.getLeft() : n.getRight()) {
+            depth++;
+            if (key == n.getData()) break;
+        }
+        return depth;
+    }
+
+    /**
+     * @return the keys from 0 until n in a random order, so that a BST does not degenerate
+     */
+    private static List<Integer> shuffledKeys(int n) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < n; i++) keys.add(i);
+        Collections.shuffle(keys, new Random(5));
+        return keys;
+    }
+
+    /**
+     * @return the amount of nodes of version which are not shared with previous
+     */
+    private static int countNewNodes(PersistentNode<Integer> previous, PersistentNode<Integer> version) {
+        Set<PersistentNode<Integer>> old = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(previous, old);
+        Set<PersistentNode<Integer>> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(version, current);
+        current.removeAll(old);
+        return current.size();
+    }
+
+    private static void collect(PersistentNode<Integer> node, Set<PersistentNode<Integer>> nodes) {
+        if (node == null) return;
+        nodes.add(node);
+        collect(node.getLeft(), nodes);
+        collect(node.getRight(), nodes);
+    }
+
+    private static void assertSameShape(TreeNode<Integer> node, TreePrinter printer) {
+        if (node == null) {
+            assertNull(printer);
+            return;
+        }
+        assertNotNull(printer);
+        assertEquals(node.getData().toString(), printer.toString());
+        assertSameShape(node.getLeft(), printer.getLeft());
+        assertSameShape(node.getRight(), printer.getRight());
+    }
+}